@@ -0,0 +1,121 @@
+package UI;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local load test for the HTTP front end. Starts the server in this JVM,
+ * logs in one customer (registering it first if needed), then sends a mix
+ * of product list, keyword search, cursor page and order history requests
+ * from many concurrent clients and reports requests per second and latency
+ * percentiles.
+ *
+ * Run from a scratch copy of the project directory, since it reads and
+ * writes ./data:
+ *
+ *   java -cp out UI.HttpLoadTest [requests] [concurrency] [port]
+ */
+public class HttpLoadTest {
+    private static final String USER_NAME = "load_test_user";
+    private static final String PASSWORD = "load1234";
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 18080;
+
+        HttpInterface server = new HttpInterface(port);
+        server.start();
+        String base = "http://localhost:" + port;
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(8))
+                .build();
+
+        post(client, base + "/register", "username=" + USER_NAME + "&password=" + PASSWORD
+                + "&email=load@test.com&mobile=0412345678");
+        HttpResponse<String> login = post(client, base + "/login",
+                "username=" + USER_NAME + "&password=" + PASSWORD);
+        if (login.statusCode() != 200) {
+            System.err.println("Login failed: " + login.body());
+            server.stop();
+            System.exit(1);
+        }
+        String token = login.body().replaceFirst(".*\"token\":\"([^\"]+)\".*", "$1");
+
+        HttpRequest[] mix = {
+                HttpRequest.newBuilder(URI.create(base + "/products?page=1")).build(),
+                HttpRequest.newBuilder(URI.create(base + "/products?keyword="
+                        + URLEncoder.encode("galaxy", StandardCharsets.UTF_8))).build(),
+                HttpRequest.newBuilder(URI.create(base + "/products?size=5")).build(),
+                HttpRequest.newBuilder(URI.create(base + "/orders?page=1"))
+                        .header("Authorization", "Bearer " + token).build(),
+        };
+
+        // Warm up the JIT and connection pool before measuring
+        run(client, mix, Math.min(2000, requests), concurrency);
+        long[] latencies = new long[requests];
+        AtomicInteger failures = new AtomicInteger();
+        long start = System.nanoTime();
+        run(client, mix, requests, concurrency, latencies, failures);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.printf("%d requests, %d concurrent: %.0f req/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms, %d failed%n",
+                requests, concurrency, requests / seconds,
+                latencies[requests / 2] / 1e6, latencies[(int) (requests * 0.99)] / 1e6,
+                latencies[requests - 1] / 1e6, failures.get());
+        server.stop();
+        System.exit(0);
+    }
+
+    private static void run(HttpClient client, HttpRequest[] mix, int requests, int concurrency)
+            throws InterruptedException {
+        run(client, mix, requests, concurrency, new long[requests], new AtomicInteger());
+    }
+
+    // Keep at most `concurrency` requests in flight, each on its own virtual thread
+    private static void run(HttpClient client, HttpRequest[] mix, int requests, int concurrency,
+                            long[] latencies, AtomicInteger failures) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                int index = i;
+                inFlight.acquire();
+                executor.submit(() -> {
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(mix[index % mix.length],
+                                HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        latencies[index] = System.nanoTime() - sent;
+                        inFlight.release();
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+    }
+
+    private static HttpResponse<String> post(HttpClient client, String url, String form) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(url))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,121 @@
+package operation;
+
+import model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Generated datasets and timing helpers shared by the benchmarks.
+ * Data is built from a fixed seed, so every run measures the same records.
+ */
+final class BenchData {
+    static final String[] BRANDS = {"Apple", "Samsung", "Google", "Sony", "Dell", "Lenovo", "Asus", "Acer",
+            "Huawei", "Xiaomi", "Nokia", "Canon", "Nikon", "Bose", "Philips", "Garmin"};
+    static final String[] LINES = {"Galaxy", "Pixel", "Xperia", "Inspiron", "ThinkPad", "ZenBook", "Aspire",
+            "Mate", "Redmi", "Lumia", "EOS", "Coolpix", "QuietComfort", "Hue", "Forerunner", "iPhone"};
+    static final String[] VARIANTS = {"Pro", "Max", "Ultra", "Lite", "Plus", "Mini", "Air", "Neo"};
+    static final String[] CATEGORIES = {"Smartphone", "Laptop", "Tablet", "Camera", "Headphones",
+            "Smartwatch", "Monitor", "Speaker", "Accessory", "Console"};
+
+    // Last result of a timed task, kept so the JIT cannot drop the work
+    static volatile Object sink;
+
+    private BenchData() {
+    }
+
+    /**
+     * Products with names like "Samsung Galaxy S21 Ultra 128GB" and ids p_0000001 upwards.
+     */
+    static List<Product> products(int count) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = BRANDS[random.nextInt(BRANDS.length)] + " " + LINES[random.nextInt(LINES.length)]
+                    + " " + (char) ('A' + random.nextInt(26)) + random.nextInt(100)
+                    + " " + VARIANTS[random.nextInt(VARIANTS.length)]
+                    + " " + (16 << random.nextInt(6)) + "GB";
+            double raw = 50 + random.nextInt(300000) / 100.0;
+            double discount = random.nextInt(50);
+            products.add(new Product(String.format("p_%07d", i + 1), "M" + random.nextInt(100000),
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], name,
+                    Math.round(raw * (100 - discount)) / 100.0, raw, discount, random.nextInt(5000)));
+        }
+        return products;
+    }
+
+    /**
+     * Customers u_0000001 upwards, each with a distinct name.
+     */
+    static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new Customer(String.format("u_%07d", i + 1), "customer_" + i, "password" + i,
+                    time(i), "customer", "customer" + i + "@example.com", String.format("04%08d", i)));
+        }
+        return users;
+    }
+
+    /**
+     * Orders spread at random over the given numbers of users and products,
+     * with the ids the users() and products() generators hand out.
+     */
+    static List<Order> orders(int count, int users, int products) {
+        Random random = new Random(7);
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            orders.add(new Order(String.format("o_%09d", i + 1),
+                    String.format("u_%07d", random.nextInt(users) + 1),
+                    String.format("p_%07d", random.nextInt(products) + 1),
+                    time(random.nextInt(1_000_000))));
+        }
+        return orders;
+    }
+
+    // A dd-MM-yyyy_HH:mm:ss time in 2024 derived from a number
+    private static String time(int seed) {
+        return String.format("%02d-%02d-2024_%02d:%02d:%02d", seed % 28 + 1, seed / 28 % 12 + 1,
+                seed % 24, seed / 24 % 60, seed / 7 % 60);
+    }
+
+    /**
+     * The data file lines of the given records.
+     */
+    static <T> List<String> lines(List<T> records, RecordCodec<T> codec) {
+        List<String> lines = new ArrayList<>(records.size());
+        for (T record : records) {
+            lines.add(codec.format(record));
+        }
+        return lines;
+    }
+
+    /**
+     * Sizes given on the command line, or the defaults if there are none.
+     */
+    static int[] sizes(String[] args, int... defaults) {
+        if (args.length == 0) {
+            return defaults;
+        }
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+
+    /**
+     * Best wall time of several runs of a task, in milliseconds.
+     * The first runs warm up the JIT, so the minimum is the steady-state cost.
+     */
+    static double bestMillis(int runs, Supplier<?> task) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            sink = task.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+}
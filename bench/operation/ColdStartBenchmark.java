@@ -0,0 +1,144 @@
+package operation;
+
+import model.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cold start of the three stores from the text files against the binary
+ * snapshots next to them. Writes generated users.txt, products.txt and
+ * orders.txt (plus snapshots) to a temporary directory, then loads them in
+ * a fresh JVM per run, so every load pays for class loading and an
+ * unwarmed JIT the way a real start does.
+ *
+ *   java -cp out operation.ColdStartBenchmark [orders] [runs]
+ *
+ * -D and -X options (e.g. a fixed heap with -Xms) are passed on to each run.
+ * Users and products are a tenth of the orders each.
+ */
+public class ColdStartBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("load")) {
+            load(new File(args[1]));
+            return;
+        }
+
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        File dir = Files.createTempDirectory("cold-start").toFile();
+        try {
+            write(dir, "users.txt", BenchData.users(orders / 10), RecordCodec.USERS);
+            write(dir, "products.txt", BenchData.products(orders / 10), RecordCodec.PRODUCTS);
+            write(dir, "orders.txt", BenchData.orders(orders, orders / 10, orders / 10), RecordCodec.ORDERS);
+            System.out.printf("%,d users, %,d products, %,d orders; best of %d cold starts%n",
+                    orders / 10, orders / 10, orders, runs);
+
+            report("text", dir, runs, true);
+            report("snapshot", dir, runs, false);
+        } finally {
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+    // Text file and an up-to-date snapshot, written after it
+    private static <T> void write(File dir, String name, List<T> records, RecordCodec<T> codec)
+            throws IOException {
+        File text = new File(dir, name);
+        Files.write(text.toPath(), BenchData.lines(records, codec));
+        File snapshot = new File(dir, name + ".snapshot");
+        RecordSnapshot.write(snapshot, records, codec);
+        snapshot.setLastModified(text.lastModified() + 1000);
+    }
+
+    private static void report(String path, File dir, int runs, boolean withoutSnapshots) throws Exception {
+        double[] best = null;
+        for (int i = 0; i < runs; i++) {
+            File[] hidden = withoutSnapshots ? hideSnapshots(dir) : new File[0];
+            double[] millis = child(dir);
+            restore(hidden);
+            if (best == null) {
+                best = millis;
+            } else {
+                for (int j = 0; j < best.length; j++) {
+                    best[j] = Math.min(best[j], millis[j]);
+                }
+            }
+        }
+        System.out.printf("  %-8s users %7.1f ms   products %7.1f ms   orders %7.1f ms   total %7.1f ms%n",
+                path, best[0], best[1], best[2], best[3]);
+    }
+
+    // Move the snapshots aside so the stores parse the text files
+    private static File[] hideSnapshots(File dir) {
+        File[] snapshots = dir.listFiles((d, name) -> name.endsWith(".snapshot"));
+        for (File snapshot : snapshots) {
+            snapshot.renameTo(new File(snapshot.getPath() + ".hidden"));
+        }
+        return snapshots;
+    }
+
+    private static void restore(File[] snapshots) {
+        for (File snapshot : snapshots) {
+            // The text load writes a fresh snapshot in the background; keep the original
+            snapshot.delete();
+            new File(snapshot.getPath() + ".hidden").renameTo(snapshot);
+        }
+    }
+
+    // Child JVM: load each store once and print the times
+    private static void load(File dir) {
+        long start = System.nanoTime();
+        List<User> users = new TextStorageBackend<>(new File(dir, "users.txt"), RecordCodec.USERS).loadAll();
+        long usersDone = System.nanoTime();
+        List<Product> products = new TextStorageBackend<>(new File(dir, "products.txt"), RecordCodec.PRODUCTS)
+                .loadAll();
+        long productsDone = System.nanoTime();
+        List<Order> orders = new TextStorageBackend<>(new File(dir, "orders.txt"), RecordCodec.ORDERS).loadAll();
+        long ordersDone = System.nanoTime();
+        if (users.isEmpty() || products.isEmpty() || orders.isEmpty()) {
+            System.err.println("FAILED: a store loaded no records");
+            System.exit(1);
+        }
+        System.out.println((usersDone - start) / 1e6 + "," + (productsDone - usersDone) / 1e6 + ","
+                + (ordersDone - productsDone) / 1e6 + "," + (ordersDone - start) / 1e6);
+        // Skip the background snapshot refresh of a text load
+        System.exit(0);
+    }
+
+    private static double[] child(File dir) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        // Same heap and property options as this JVM
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (option.startsWith("-D") || option.startsWith("-X")) {
+                command.add(option);
+            }
+        }
+        command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"),
+                ColdStartBenchmark.class.getName(), "load", dir.getPath()));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        String last = null;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                last = line;
+            }
+        }
+        if (process.waitFor() != 0 || last == null) {
+            throw new IllegalStateException("load run failed");
+        }
+        return Arrays.stream(last.split(",")).mapToDouble(Double::parseDouble).toArray();
+    }
+}
@@ -0,0 +1,237 @@
+package operation;
+
+import model.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Multi-threaded stress test for the operation singletons. Many threads at
+ * once register customers (and race for one shared name), add products,
+ * place orders for one shared product and run searches and queries, then the
+ * test checks that no update was lost: every count grew by exactly what the
+ * threads did and every ID is unique. A second JVM then reloads the data and
+ * checks the same counts, so the journals must hold every change.
+ *
+ * Run from a scratch copy of the project directory, since it writes ./data:
+ *
+ *   java -cp out operation.ConcurrencyStressTest [threads] [operations per thread]
+ *
+ * Extra -D options (e.g. -Dorders.storage=blocks) are passed on to both runs.
+ * Exits with status 1 if a check fails.
+ */
+public class ConcurrencyStressTest {
+    private static final String PASSWORD = "stress123";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("run")) {
+            run(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("verify")) {
+            verify(args[1]);
+            return;
+        }
+
+        String threads = args.length > 0 ? args[0] : "16";
+        String operations = args.length > 1 ? args[1] : "50";
+        String expected = child("run", threads, operations);
+        if (expected == null) {
+            System.err.println("FAILED: stress run did not finish");
+            System.exit(1);
+        }
+        if (child("verify", expected) == null) {
+            System.err.println("FAILED: counts after restart do not match");
+            System.exit(1);
+        }
+        System.out.println("PASSED");
+    }
+
+    /**
+     * Hammer the singletons from many threads and check the counts in this JVM.
+     * Prints the expected counts for the restart check on the last line.
+     */
+    private static void run(int threads, int operations) throws Exception {
+        UserOperation userOp = UserOperation.getInstance();
+        CustomerOperation customerOp = CustomerOperation.getInstance();
+        ProductOperation productOp = ProductOperation.getInstance();
+        OrderOperation orderOp = OrderOperation.getInstance();
+
+        int usersBefore = userOp.getAllUsers().size();
+        int customersBefore = allCustomers(customerOp).size();
+        int productsBefore = allProducts(productOp).size();
+        int ordersBefore = allOrders(orderOp).size();
+
+        // Letters only, so the names pass validation; new per run so reruns still register
+        String run = letters(ThreadLocalRandom.current().nextInt(26 * 26 * 26 * 26), 4);
+        Product shared = new Product(productOp.generateUniqueProductId(), "stress", "Stress",
+                "Stress Shared " + run, 10, 10, 0, 0);
+        productOp.addProduct(shared).join();
+
+        AtomicInteger registered = new AtomicInteger();
+        AtomicInteger sharedNameWins = new AtomicInteger();
+        List<CompletableFuture<?>> writes = new CopyOnWriteArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            tasks.add(executor.submit(() -> {
+                start.await();
+                if (customerOp.registerCustomer("stress_" + run + "_shared", PASSWORD, "s@stress.com", "0412345678")
+                        .join()) {
+                    sharedNameWins.incrementAndGet();
+                }
+                String name = "stress_" + run + "_" + letters(thread, 3);
+                check(customerOp.registerCustomer(name, PASSWORD, "s@stress.com", "0412345678").join(),
+                        "registering " + name);
+                registered.incrementAndGet();
+                User customer = userOp.login(name, PASSWORD);
+                check(customer instanceof Customer, "login of " + name);
+
+                for (int i = 0; i < operations; i++) {
+                    writes.add(productOp.addProduct(new Product(productOp.generateUniqueProductId(), "stress",
+                            "Stress", "Stress Item " + thread + " " + i, i, i, 0, i)));
+                    writes.add(orderOp.placeOrder(customer.getUserId(), shared.getProId()));
+                    productOp.getProductListByKeyword("stress item");
+                    productOp.query(new ProductQuery().category("Stress").priceBetween(0, 20).limit(5));
+                    orderOp.query(new OrderQuery().user(customer.getUserId()).newestFirst(true).limit(5));
+                    orderOp.getTopBestSellers(3);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            for (CompletableFuture<?> write : writes) {
+                write.join();
+            }
+        } catch (ExecutionException | CompletionException e) {
+            e.getCause().printStackTrace();
+            check(false, "a stress thread threw " + e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int changes = threads * operations;
+        List<User> users = userOp.getAllUsers();
+        check(sharedNameWins.get() == 1, "one winner for the shared name, got " + sharedNameWins.get());
+        check(users.size() == usersBefore + registered.get() + 1,
+                "users " + users.size() + ", expected " + (usersBefore + registered.get() + 1));
+        check(allCustomers(customerOp).size() == customersBefore + registered.get() + 1, "customer list count");
+        check(distinct(users, User::getUserId) == users.size(), "duplicate user ids");
+
+        List<Product> products = allProducts(productOp);
+        check(products.size() == productsBefore + changes + 1,
+                "products " + products.size() + ", expected " + (productsBefore + changes + 1));
+        check(distinct(products, Product::getProId) == products.size(), "duplicate product ids");
+
+        List<Order> orders = allOrders(orderOp);
+        int sales = salesOf(orderOp, shared.getProId());
+        check(orders.size() == ordersBefore + changes,
+                "orders " + orders.size() + ", expected " + (ordersBefore + changes));
+        check(distinct(orders, Order::getOrderId) == orders.size(), "duplicate order ids");
+        check(sales == changes, "sales of the shared product " + sales + ", expected " + changes);
+
+        System.out.printf("%d threads x %d operations: no lost updates%n", threads, operations);
+        System.out.println(users.size() + "," + products.size() + "," + orders.size() + ","
+                + shared.getProId() + "," + sales);
+    }
+
+    // Reload everything in a fresh JVM and compare with the counts of the run
+    private static void verify(String expected) {
+        String[] counts = expected.split(",");
+        int users = UserOperation.getInstance().getAllUsers().size();
+        int products = allProducts(ProductOperation.getInstance()).size();
+        int orders = allOrders(OrderOperation.getInstance()).size();
+        int sales = salesOf(OrderOperation.getInstance(), counts[3]);
+        check(users == Integer.parseInt(counts[0]), "users after restart " + users + ", expected " + counts[0]);
+        check(products == Integer.parseInt(counts[1]), "products after restart " + products + ", expected " + counts[1]);
+        check(orders == Integer.parseInt(counts[2]), "orders after restart " + orders + ", expected " + counts[2]);
+        check(sales == Integer.parseInt(counts[4]), "sales after restart " + sales + ", expected " + counts[4]);
+        System.out.println("after restart: " + users + " users, " + products + " products, " + orders + " orders");
+        System.out.println(expected);
+    }
+
+    /**
+     * Run a phase in a new JVM with the same class path and -D options.
+     *
+     * @return the last line it printed, or null if it failed
+     */
+    private static String child(String... args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (option.startsWith("-D") || option.startsWith("-X")) {
+                command.add(option);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ConcurrencyStressTest.class.getName());
+        command.addAll(Arrays.asList(args));
+
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        String last = null;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                // Skip the operations' own debug output
+                if (!line.startsWith("DEBUG")) {
+                    System.out.println("  [" + args[0] + "] " + line);
+                    last = line;
+                }
+            }
+        }
+        return process.waitFor() == 0 ? last : null;
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            System.err.println("FAILED: " + what);
+            System.exit(1);
+        }
+    }
+
+    private static String letters(int value, int length) {
+        char[] chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = (char) ('a' + value % 26);
+            value /= 26;
+        }
+        return new String(chars);
+    }
+
+    private static <T> int distinct(List<T> items, Function<T, String> id) {
+        Set<String> ids = new HashSet<>();
+        for (T item : items) {
+            ids.add(id.apply(item));
+        }
+        return ids.size();
+    }
+
+    private static int salesOf(OrderOperation orderOp, String proId) {
+        return orderOp.getTopBestSellers(Integer.MAX_VALUE).getOrDefault(proId, 0);
+    }
+
+    private static List<Customer> allCustomers(CustomerOperation customerOp) {
+        return customerOp.getCustomerList(null, Integer.MAX_VALUE).getCustomers();
+    }
+
+    private static List<Product> allProducts(ProductOperation productOp) {
+        return productOp.getProductList(null, Integer.MAX_VALUE).getProducts();
+    }
+
+    private static List<Order> allOrders(OrderOperation orderOp) {
+        return orderOp.getAllOrders(null, Integer.MAX_VALUE).getOrders();
+    }
+}
@@ -0,0 +1,148 @@
+package operation;
+
+import model.Product;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Latency of ProductOperation.getProductListByFuzzyKeyword as the catalog
+ * grows, against a brute-force scan that computes the edit distance from
+ * every query token to every name token. Both return the top 10.
+ *
+ *   java -cp out operation.FuzzySearchBenchmark [catalog sizes...]
+ *
+ * ProductOperation loads ./data/products.txt, so each catalog size is written
+ * to a temporary directory and measured in a fresh JVM started there.
+ *
+ * The index only scores products with a name token similar to the query,
+ * so its cost follows the number of matches rather than the catalog size.
+ * The generated names reuse a small vocabulary, which makes every word
+ * common (a brand is in a sixteenth of the catalog), so here the matches,
+ * and with them the index time, still grow with the catalog.
+ */
+public class FuzzySearchBenchmark {
+    private static final String[] QUERIES = {"samsnug", "thinkpda 64gb", "quietcomfrot", "k37 ultar"};
+    private static final int TOP = 10;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("measure")) {
+            measure();
+            return;
+        }
+
+        for (int size : BenchData.sizes(args, 10_000, 100_000, 500_000)) {
+            File dir = Files.createTempDirectory("fuzzy-search").toFile();
+            File data = new File(dir, "data");
+            try {
+                data.mkdir();
+                Files.write(new File(data, "products.txt").toPath(),
+                        BenchData.lines(BenchData.products(size), RecordCodec.PRODUCTS));
+                System.out.printf("%,d products%n", size);
+                child(dir);
+            } finally {
+                for (File file : data.listFiles()) {
+                    file.delete();
+                }
+                data.delete();
+                dir.delete();
+            }
+        }
+    }
+
+    // Child JVM, started in the catalog's directory: time each query both ways
+    private static void measure() {
+        ProductOperation productOp = ProductOperation.getInstance();
+        List<Product> products = productOp.getProductList(null, Integer.MAX_VALUE).getProducts();
+        for (String query : QUERIES) {
+            double indexed = BenchData.bestMillis(RUNS, () -> productOp.getProductListByFuzzyKeyword(query, TOP));
+            double scan = BenchData.bestMillis(Math.max(1, RUNS / 5), () -> scanTop(products, query));
+            System.out.printf("  %-16s index %8.3f ms   scan %9.1f ms   top hit \"%s\"%n",
+                    "\"" + query + "\"", indexed, scan,
+                    productOp.getProductListByFuzzyKeyword(query, TOP).get(0).getProName());
+        }
+        // Skip the background snapshot refresh of the text load
+        System.exit(0);
+    }
+
+    private static void child(File dir) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (option.startsWith("-D") || option.startsWith("-X")) {
+                command.add(option);
+            }
+        }
+        // The child runs in another directory, so relative class path entries must be made absolute
+        StringJoiner classPath = new StringJoiner(File.pathSeparator);
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            classPath.add(new File(entry).getAbsolutePath());
+        }
+        command.addAll(Arrays.asList("-cp", classPath.toString(), FuzzySearchBenchmark.class.getName(), "measure"));
+        Process process = new ProcessBuilder(command).directory(dir)
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                // Skip the operations' own debug output
+                if (!line.startsWith("DEBUG")) {
+                    System.out.println(line);
+                }
+            }
+        }
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("measure run failed");
+        }
+    }
+
+    // Sum over the query tokens of the smallest edit distance to a name token; lowest first
+    private static List<Product> scanTop(List<Product> products, String query) {
+        List<String> queryTokens = ProductTokenIndex.tokenize(query);
+        PriorityQueue<Map.Entry<Product, Integer>> top = new PriorityQueue<>(
+                Comparator.comparing((Map.Entry<Product, Integer> entry) -> entry.getValue()).reversed());
+        for (Product product : products) {
+            List<String> nameTokens = ProductTokenIndex.tokenize(product.getProName());
+            int distance = 0;
+            for (String queryToken : queryTokens) {
+                int best = Integer.MAX_VALUE;
+                for (String nameToken : nameTokens) {
+                    best = Math.min(best, editDistance(queryToken, nameToken));
+                }
+                distance += best;
+            }
+            top.add(Map.entry(product, distance));
+            if (top.size() > TOP) {
+                top.poll();
+            }
+        }
+        List<Product> result = new ArrayList<>();
+        while (!top.isEmpty()) {
+            result.add(0, top.poll().getKey());
+        }
+        return result;
+    }
+
+    private static int editDistance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,89 @@
+package operation;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Contention benchmark for IdGenerator: 1 to 16 threads take IDs from one
+ * generator at once. Reports IDs per second and checks that every ID is
+ * unique and that each thread saw its IDs strictly increasing. For
+ * comparison it counts the collisions of the generator it replaced,
+ * "u_" + currentTimeMillis + "_" + random(1000), on the same number of IDs.
+ *
+ *   java -cp out operation.IdGeneratorBenchmark [IDs per thread]
+ */
+public class IdGeneratorBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) throws Exception {
+        int perThread = BenchData.sizes(args, 500_000)[0];
+        // Warm up the JIT before the single-thread round
+        for (int i = 0; i < perThread; i++) {
+            IdGenerator.ORDERS.nextValue();
+        }
+        for (int threads : THREADS) {
+            long[][] ids = new long[threads][perThread];
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                long[] mine = ids[t];
+                workers[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < mine.length; i++) {
+                        mine[i] = IdGenerator.ORDERS.nextValue();
+                    }
+                });
+                workers[t].start();
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            double seconds = (System.nanoTime() - begin) / 1e9;
+
+            long total = (long) threads * perThread;
+            System.out.printf("%2d threads: %,12.0f IDs/s, %s, old generator: %,d collisions%n", threads,
+                    total / seconds, check(ids), oldCollisions((int) total));
+        }
+    }
+
+    // Increasing within each thread and unique across all of them
+    private static String check(long[][] ids) {
+        for (long[] mine : ids) {
+            for (int i = 1; i < mine.length; i++) {
+                if (mine[i] <= mine[i - 1]) {
+                    System.err.println("FAILED: IDs went backwards within a thread");
+                    System.exit(1);
+                }
+            }
+        }
+        long[] all = Arrays.stream(ids).flatMapToLong(Arrays::stream).sorted().toArray();
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) {
+                System.err.println("FAILED: duplicate ID " + all[i]);
+                System.exit(1);
+            }
+        }
+        return "all unique";
+    }
+
+    // UserOperation.generateUniqueUserId before IdGenerator
+    private static int oldCollisions(int count) {
+        Set<String> seen = new HashSet<>();
+        int collisions = 0;
+        for (int i = 0; i < count; i++) {
+            if (!seen.add("u_" + System.currentTimeMillis() + "_" + ThreadLocalRandom.current().nextInt(1000))) {
+                collisions++;
+            }
+        }
+        return collisions;
+    }
+}
@@ -0,0 +1,89 @@
+package operation;
+
+import model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap held by loaded products and orders with and without the load-time
+ * string dictionaries. Parses generated data file lines twice: once the way
+ * the loaders do, sharing one instance per user id, product id and category,
+ * and once with a private copy of every field per record, as before.
+ *
+ *   java -Xmx2g -cp out operation.InterningHeapBenchmark [orders] [users] [products]
+ *
+ * Heap is measured as used memory after a full GC, so run it with a heap
+ * large enough to hold both copies and nothing else going on.
+ */
+public class InterningHeapBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int orderCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int userCount = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int productCount = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        List<String> productLines = BenchData.lines(BenchData.products(productCount), RecordCodec.PRODUCTS);
+        List<String> orderLines = BenchData.lines(BenchData.orders(orderCount, userCount, productCount),
+                RecordCodec.ORDERS);
+        System.out.printf("%,d products and %,d orders over %,d users%n", productCount, orderCount, userCount);
+
+        long copiedBytes = retained(productLines, orderLines, false);
+        long sharedBytes = retained(productLines, orderLines, true);
+        System.out.printf("  a copy per record  %,8.1f MB%n", copiedBytes / 1e6);
+        System.out.printf("  shared instances   %,8.1f MB   (%,d user ids, %,d product ids, %,d categories)%n",
+                sharedBytes / 1e6, StringDictionary.USER_IDS.size(), StringDictionary.PRODUCT_IDS.size(),
+                StringDictionary.CATEGORIES.size());
+        System.out.printf("  saved              %,8.1f MB   (%.0f%%)%n", (copiedBytes - sharedBytes) / 1e6,
+                100.0 * (copiedBytes - sharedBytes) / copiedBytes);
+    }
+
+    // Heap held by the records parsed from the lines
+    private static long retained(List<String> productLines, List<String> orderLines, boolean share)
+            throws InterruptedException {
+        long before = usedHeap();
+        BenchData.sink = load(productLines, orderLines, share);
+        long after = usedHeap();
+        BenchData.sink = null;
+        return after - before;
+    }
+
+    // Parse every line; without sharing, give each record its own copy of the interned fields
+    private static List<Object> load(List<String> productLines, List<String> orderLines, boolean share) {
+        RecordParser parser = new RecordParser();
+        List<Object> records = new ArrayList<>(productLines.size() + orderLines.size());
+        for (String line : productLines) {
+            Product product = parser.parseProduct(line);
+            if (!share) {
+                product.setProId(copy(product.getProId()));
+                product.setProCategory(copy(product.getProCategory()));
+            }
+            records.add(product);
+        }
+        for (String line : orderLines) {
+            Order order = parser.parseOrder(line);
+            if (!share) {
+                order = new Order(order.getOrderId(), copy(order.getUserId()),
+                        copy(order.getProId()), order.getOrderTime());
+            }
+            records.add(order);
+        }
+        return records;
+    }
+
+    // A String with its own character array, as a substring of the line had
+    private static String copy(String value) {
+        return new String(value.toCharArray());
+    }
+
+    // Used heap after the garbage collector has settled
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
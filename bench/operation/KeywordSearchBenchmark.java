@@ -0,0 +1,58 @@
+package operation;
+
+import model.Product;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keyword search through the token index against the linear scan it
+ * replaced, which lowercased every product name and ran contains on it.
+ * Also times building the index and one incremental add and remove.
+ *
+ *   java -cp out operation.KeywordSearchBenchmark [catalog sizes...]
+ *
+ * The two searches differ slightly in what they match (whole-token prefixes
+ * against any substring), so the result counts are printed next to the times.
+ */
+public class KeywordSearchBenchmark {
+    private static final String[] QUERIES = {"galaxy", "sam", "pixel pro", "thinkpad 64gb", "nothing"};
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) {
+        for (int size : BenchData.sizes(args, 10_000, 100_000, 500_000)) {
+            List<Product> products = BenchData.products(size);
+            ProductTokenIndex index = new ProductTokenIndex();
+            double build = BenchData.bestMillis(1, () -> {
+                for (Product product : products) {
+                    index.add(product);
+                }
+                return index;
+            });
+            System.out.printf("%,d products, index built in %.1f ms%n", size, build);
+
+            for (String query : QUERIES) {
+                double scan = BenchData.bestMillis(RUNS, () -> linearScan(products, query));
+                double indexed = BenchData.bestMillis(RUNS, () -> index.search(query));
+                System.out.printf("  %-15s scan %8.3f ms (%,7d hits)   index %8.3f ms (%,7d hits)   %6.1fx%n",
+                        "\"" + query + "\"", scan, linearScan(products, query).size(),
+                        indexed, index.search(query).size(), scan / indexed);
+            }
+
+            Product extra = new Product("p_extra", "X1", "Laptop", "Benchmark Extra 16GB", 1, 1, 0, 0);
+            double update = BenchData.bestMillis(RUNS, () -> {
+                index.add(extra);
+                index.remove(extra);
+                return index;
+            });
+            System.out.printf("  add + remove one product %.3f ms%n", update);
+        }
+    }
+
+    // Search as ProductOperation did before the token index
+    private static List<Product> linearScan(List<Product> products, String keyword) {
+        return products.stream()
+                .filter(p -> p.getProName().toLowerCase().contains(keyword.toLowerCase()))
+                .collect(Collectors.toList());
+    }
+}
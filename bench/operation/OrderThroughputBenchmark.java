@@ -0,0 +1,118 @@
+package operation;
+
+import model.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sustained order placement through OrderOperation.placeOrder: several
+ * producer threads place orders as fast as the ingest queue accepts them
+ * for a fixed time, and the benchmark reports durable orders per second,
+ * rejections and the latency from placing an order to it being stored.
+ * Afterwards the product ordered must show a sale for every stored order.
+ *
+ * Run from a scratch copy of the project directory, since it writes ./data:
+ *
+ *   java -cp out operation.OrderThroughputBenchmark [seconds] [producers]
+ *
+ * Storage and queue options (e.g. -Dorders.storage=blocks,
+ * -Dorder.batch.size=64) are read as usual.
+ */
+public class OrderThroughputBenchmark {
+    private static final String USER_NAME = "bench_orders";
+    private static final String PASSWORD = "bench1234";
+
+    // Every SAMPLE_EVERY-th order records its latency
+    private static final int SAMPLE_EVERY = 16;
+
+    private static final LongAdder stored = new LongAdder();
+    private static final LongAdder rejected = new LongAdder();
+    private static final AtomicLong pending = new AtomicLong();
+    private static final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int producers = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+
+        CustomerOperation.getInstance().registerCustomer(USER_NAME, PASSWORD, "bench@orders.com", "0412345678")
+                .join();
+        User customer = UserOperation.getInstance().login(USER_NAME, PASSWORD);
+        if (!(customer instanceof Customer)) {
+            System.err.println("FAILED: could not log in " + USER_NAME);
+            System.exit(1);
+        }
+        ProductOperation productOp = ProductOperation.getInstance();
+        Product product = new Product(productOp.generateUniqueProductId(), "bench", "Bench",
+                "Bench Order Target", 1, 1, 0, 0);
+        productOp.addProduct(product).join();
+        OrderOperation orderOp = OrderOperation.getInstance();
+
+        // Warm up the JIT, then start the counts from zero
+        place(orderOp, customer.getUserId(), product.getProId(), producers, 2);
+        long warmup = stored.sumThenReset();
+        rejected.reset();
+        latencies.clear();
+
+        long start = System.nanoTime();
+        place(orderOp, customer.getUserId(), product.getProId(), producers, seconds);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long count = stored.sum();
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("%d producers, %s storage: %,.0f orders/s over %.1f s (%,d stored, %,d rejected)%n",
+                producers, System.getProperty("orders.storage", "memory"), count / elapsed, elapsed,
+                count, rejected.sum());
+        if (!sorted.isEmpty()) {
+            System.out.printf("  latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    sorted.get(sorted.size() / 2) / 1e6, sorted.get((int) (sorted.size() * 0.99)) / 1e6,
+                    sorted.get(sorted.size() - 1) / 1e6);
+        }
+
+        // The product is new, so its sales are exactly the orders stored by this run
+        int sales = orderOp.getTopBestSellers(Integer.MAX_VALUE).getOrDefault(product.getProId(), 0);
+        if (sales != warmup + count) {
+            System.err.printf("FAILED: %,d orders stored, expected %,d%n", sales, warmup + count);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    // Place orders from every producer until the time is up, then wait for the writer
+    private static void place(OrderOperation orderOp, String userId, String proId, int producers, int seconds)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            executor.execute(() -> {
+                long placed = 0;
+                while (System.nanoTime() < deadline) {
+                    long sent = System.nanoTime();
+                    boolean sample = placed++ % SAMPLE_EVERY == 0;
+                    pending.incrementAndGet();
+                    orderOp.placeOrder(userId, proId).whenComplete((order, error) -> {
+                        if (error == null) {
+                            stored.increment();
+                            if (sample) {
+                                latencies.add(System.nanoTime() - sent);
+                            }
+                        } else {
+                            rejected.increment();
+                        }
+                        pending.decrementAndGet();
+                    });
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        while (pending.get() > 0) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package operation;
+
+import model.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The single-pass RecordParser against the per-line HashMap and regex
+ * parsers it replaced in UserOperation, ProductOperation and OrderOperation
+ * (copied below as they were). Both parse the same generated lines and
+ * must produce the same records.
+ *
+ *   java -cp out operation.RecordParserBenchmark [lines per type]
+ */
+public class RecordParserBenchmark {
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) {
+        int count = BenchData.sizes(args, 500_000)[0];
+        RecordParser parser = new RecordParser();
+        compare("users", BenchData.lines(BenchData.users(count), RecordCodec.USERS),
+                RecordParserBenchmark::oldParseUser, parser::parseUser);
+        compare("products", BenchData.lines(BenchData.products(count), RecordCodec.PRODUCTS),
+                RecordParserBenchmark::oldParseProduct, parser::parseProduct);
+        compare("orders", BenchData.lines(BenchData.orders(count, 10_000, 10_000), RecordCodec.ORDERS),
+                RecordParserBenchmark::oldParseOrder, parser::parseOrder);
+    }
+
+    private static <T> void compare(String type, List<String> lines,
+                                    Function<String, T> oldParser, Function<String, T> newParser) {
+        List<T> expected = parseAll(lines, oldParser);
+        List<T> actual = parseAll(lines, newParser);
+        for (int i = 0; i < lines.size(); i++) {
+            if (!String.valueOf(expected.get(i)).equals(String.valueOf(actual.get(i)))) {
+                System.err.println("FAILED: parsers disagree on " + lines.get(i));
+                System.exit(1);
+            }
+        }
+
+        double oldMillis = BenchData.bestMillis(RUNS, () -> parseAll(lines, oldParser));
+        double newMillis = BenchData.bestMillis(RUNS, () -> parseAll(lines, newParser));
+        System.out.printf("%,d %-8s regex %7.1f ms (%,6.0f k lines/s)   single-pass %7.1f ms (%,6.0f k lines/s)   %4.1fx%n",
+                lines.size(), type, oldMillis, lines.size() / oldMillis, newMillis, lines.size() / newMillis,
+                oldMillis / newMillis);
+    }
+
+    private static <T> List<T> parseAll(List<String> lines, Function<String, T> parser) {
+        List<T> records = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            records.add(parser.apply(line));
+        }
+        return records;
+    }
+
+    // UserOperation.parseUser and createUserMap before RecordParser
+    private static User oldParseUser(String line) {
+        Map<String, String> userMap = new HashMap<>();
+        String content = line.substring(1, line.length() - 1);
+        for (String pair : content.split("\",\\s*\"")) {
+            String[] keyValue = pair.split("\":\"?", 2);
+            if (keyValue.length == 2) {
+                userMap.put(keyValue[0].replace("\"", "").trim(), keyValue[1].replace("\"", "").trim());
+            }
+        }
+        String role = userMap.get("user_role");
+        if ("admin".equalsIgnoreCase(role)) {
+            return new Admin(userMap.get("user_id"), userMap.get("user_name"), userMap.get("user_password"),
+                    userMap.get("user_register_time"), role);
+        }
+        return new Customer(userMap.get("user_id"), userMap.get("user_name"), userMap.get("user_password"),
+                userMap.get("user_register_time"), role, userMap.get("user_email"), userMap.get("user_mobile"));
+    }
+
+    // ProductOperation.parseProduct before RecordParser
+    private static Product oldParseProduct(String line) {
+        line = line.trim();
+        if (line.startsWith("{") && line.endsWith("}")) {
+            line = line.substring(1, line.length() - 1);
+        }
+        Map<String, String> productMap = new HashMap<>();
+        for (String pair : line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)")) {
+            String[] kv = pair.split(":", 2);
+            if (kv.length == 2) {
+                productMap.put(kv[0].replaceAll("\"", "").trim(), kv[1].replaceAll("\"", "").trim());
+            }
+        }
+        return new Product(productMap.get("pro_id"), productMap.get("pro_model"),
+                productMap.get("pro_category"), productMap.get("pro_name"),
+                Double.parseDouble(productMap.get("pro_current_price")),
+                Double.parseDouble(productMap.get("pro_raw_price")),
+                Double.parseDouble(productMap.get("pro_discount")),
+                Integer.parseInt(productMap.get("pro_likes_count")));
+    }
+
+    // OrderOperation.parseOrder before RecordParser
+    private static Order oldParseOrder(String line) {
+        Map<String, String> map = new HashMap<>();
+        String content = line.substring(1, line.length() - 1);
+        for (String pair : content.split("\",\\s*\"")) {
+            String[] keyValue = pair.split("\":\"?", 2);
+            if (keyValue.length == 2) {
+                map.put(keyValue[0].replace("\"", "").trim(), keyValue[1].replace("\"", "").trim());
+            }
+        }
+        return new Order(map.get("order_id"), map.get("user_id"), map.get("pro_id"), map.get("order_time"));
+    }
+}
@@ -0,0 +1,118 @@
+package operation;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One benchmark suite run against every storage backend. For users,
+ * products and orders it checks that a backend starts empty, returns
+ * exactly what it stored and replaces the whole copy on each write, then
+ * times writing and loading every record.
+ *
+ *   java -cp out operation.StorageBackendBenchmark [orders] [backends...]
+ *
+ * Users and products are a tenth of the orders each; the backends default
+ * to "text" and "binary". The text backend also keeps a snapshot, so its
+ * load after a write reads that snapshot; ColdStartBenchmark times parsing.
+ */
+public class StorageBackendBenchmark {
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] backends = args.length > 1
+                ? Arrays.copyOfRange(args, 1, args.length) : new String[]{"text", "binary"};
+
+        List<Suite<?>> suites = List.of(
+                new Suite<>("users", BenchData.users(orders / 10), RecordCodec.USERS),
+                new Suite<>("products", BenchData.products(orders / 10), RecordCodec.PRODUCTS),
+                new Suite<>("orders", BenchData.orders(orders, orders / 10, orders / 10), RecordCodec.ORDERS));
+        for (String backend : backends) {
+            System.out.println(backend + ":");
+            for (Suite<?> suite : suites) {
+                suite.run(backend);
+            }
+        }
+        System.out.println("PASSED");
+    }
+
+    // The checks and timings for one record type
+    private static final class Suite<T> {
+        private final String name;
+        private final List<T> records;
+        private final RecordCodec<T> codec;
+
+        Suite(String name, List<T> records, RecordCodec<T> codec) {
+            this.name = name;
+            this.records = records;
+            this.codec = codec;
+        }
+
+        void run(String backendName) throws Exception {
+            File dir = Files.createTempDirectory("backend-bench").toFile();
+            try {
+                String textFile = new File(dir, name + ".txt").getPath();
+                StorageBackend<T> backend = StorageBackend.open(textFile, codec, backendName);
+                check(backend.loadAll().isEmpty(), "a new backend is empty");
+
+                List<T> firstHalf = new ArrayList<>(records.subList(0, records.size() / 2));
+                backend.writeAll(records);
+                backend.writeAll(firstHalf);
+                check(same(firstHalf, backend.loadAll()), "a write replaces the stored records");
+
+                double write = BenchData.bestMillis(RUNS, () -> {
+                    try {
+                        backend.writeAll(records);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return backend;
+                });
+                check(same(records, backend.loadAll()), "loads what was written");
+                // A new instance, as after a restart
+                StorageBackend<T> reopened = StorageBackend.open(textFile, codec, backendName);
+                check(same(records, reopened.loadAll()), "a reopened backend loads what was written");
+                double load = BenchData.bestMillis(RUNS, reopened::loadAll);
+
+                System.out.printf("  %,9d %-8s write %8.1f ms   load %8.1f ms   %s%n", records.size(), name,
+                        write, load, sizeOf(dir));
+            } finally {
+                for (File file : dir.listFiles()) {
+                    file.delete();
+                }
+                dir.delete();
+            }
+        }
+
+        private boolean same(List<T> expected, List<T> actual) {
+            if (expected.size() != actual.size()) {
+                return false;
+            }
+            for (int i = 0; i < expected.size(); i++) {
+                if (!codec.format(expected.get(i)).equals(codec.format(actual.get(i)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void check(boolean condition, String what) {
+            if (!condition) {
+                System.err.println("FAILED: " + name + ": " + what);
+                System.exit(1);
+            }
+        }
+    }
+
+    // Bytes on disk per file of the backend
+    private static String sizeOf(File dir) {
+        StringBuilder sizes = new StringBuilder();
+        for (File file : dir.listFiles()) {
+            sizes.append(String.format("%s %,d KB  ", file.getName(), file.length() / 1024));
+        }
+        return sizes.toString().trim();
+    }
+}
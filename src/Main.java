@@ -1,12 +1,28 @@
+import UI.HttpInterface;
 import UI.IOInterface;
 import operation.*;
 import model.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletionException;
 
 public class Main {
     public static void main(String[] args) {
+        // "server [port]" serves the HTTP front end instead of the console menu
+        if (args.length > 0 && args[0].equals("server")) {
+            startServer(args.length > 1 ? args[1] : "8080");
+            return;
+        }
+        // "export-orders" writes data/orders.txt from the order blocks (-Dorders.storage=blocks)
+        if (args.length > 0 && args[0].equals("export-orders")) {
+            if (!OrderOperation.getInstance().exportOrdersToText()) {
+                System.exit(1);
+            }
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in);
 
         // Initialize operation instances using singleton pattern
@@ -42,7 +58,7 @@ public class Main {
                         String[] regData = io.getUserInput("Enter username, password, email, mobile", 4);
                         boolean successReg = customerOp.registerCustomer(
                                 regData[0], regData[1], regData[2], regData[3]
-                        );
+                        ).join();
                         if (successReg) {
                             io.printMessage("Registration successful! Please login.");
                         } else {
@@ -71,7 +87,7 @@ public class Main {
                         String[] customerData = io.getUserInput("Enter username, password, email, mobile", 4);
                         boolean successAddCust = customerOp.registerCustomer(
                                 customerData[0], customerData[1], customerData[2], customerData[3]
-                        );
+                        ).join();
                         if (successAddCust) {
                             io.printMessage("Customer added successfully!");
                         } else {
@@ -126,7 +142,7 @@ public class Main {
                         String[] updateData = io.getUserInput("Enter attribute (username/password/email/mobile) and new value", 2);
                         boolean successUpdate = customerOp.updateProfile(
                                 updateData[0], updateData[1], (Customer) currentUser
-                        );
+                        ).join();
                         if (successUpdate) {
                             io.printMessage("Profile updated successfully!");
                         } else {
@@ -136,7 +152,13 @@ public class Main {
                     case "3": // Show products, optionally filter by keyword
                         if (!keyword.isEmpty()) {
                             List<Product> products = productOp.getProductListByKeyword(keyword);
-                            io.showList("customer", "Product Search Results", products, 1, 1);
+                            if (products.isEmpty()) {
+                                // No exact match, so offer the closest names instead
+                                products = productOp.getProductListByFuzzyKeyword(keyword, 10);
+                                io.showList("customer", "Closest Matches", products, 1, 1);
+                            } else {
+                                io.showList("customer", "Product Search Results", products, 1, 1);
+                            }
                         } else {
                             ProductListResult prodResultCust = productOp.getProductList(1);
                             io.showList("customer", "Product", prodResultCust.getProducts(),
@@ -144,15 +166,28 @@ public class Main {
                         }
                         break;
                     case "4": // Show all orders made by the customer
-                        OrderListResult allOrdersResult = orderOp.getAllOrders(1);
-                        io.showList("admin", "All Orders", allOrdersResult.getOrders(),
-                                allOrdersResult.getCurrentPage(), allOrdersResult.getTotalPages());
+                        OrderListResult historyResult = orderOp.getOrdersByUser(currentUser.getUserId(), 1);
+                        io.showList("customer", "History Orders", historyResult.getOrders(),
+                                historyResult.getCurrentPage(), historyResult.getTotalPages());
                         break;
                     case "5": // Generate consumption figure for this customer
                         orderOp.generateSingleCustomerConsumptionFigure(currentUser.getUserId());
                         io.printMessage("Consumption figures generated");
                         break;
-                    case "6": // Logout
+                    case "6": // Place an order and wait until it is stored
+                        if (keyword.isEmpty()) {
+                            io.printErrorMessage("Place Order", "Enter a product id, e.g. '6 p001'");
+                            break;
+                        }
+                        try {
+                            Order placed = orderOp.placeOrder(currentUser.getUserId(), keyword.trim()).join();
+                            io.printMessage("Order placed successfully!");
+                            io.printObject(placed);
+                        } catch (CompletionException e) {
+                            io.printErrorMessage("Place Order", e.getCause().getMessage());
+                        }
+                        break;
+                    case "7": // Logout
                         currentUser = null;
                         break;
                     default:
@@ -165,4 +200,14 @@ public class Main {
         io.printMessage("Thank you for using our system. Goodbye!");
         scanner.close();
     }
+
+    private static void startServer(String port) {
+        AdminOperation.getInstance().registerAdmin();
+        try {
+            new HttpInterface(Integer.parseInt(port)).start();
+            System.out.println("Serving HTTP on port " + port);
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error starting server: " + e.getMessage());
+        }
+    }
 }
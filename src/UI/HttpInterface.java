@@ -0,0 +1,354 @@
+package UI;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.*;
+import operation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * HTTP front end serving many sessions from one JVM. Each request runs on its
+ * own virtual thread and calls the same operation singletons as the console menu.
+ *
+ * Requests send parameters as a query string (GET) or a form-encoded body (POST);
+ * responses are JSON. Login returns a session token; endpoints that act for a
+ * customer take it as "Authorization: Bearer <token>" (or HTTP Basic credentials).
+ *
+ *   POST /login     username, password
+ *   POST /logout                                                           [auth]
+ *   POST /register  username, password, email, mobile
+ *   GET  /products  page | cursor, size | keyword
+ *   POST /profile   attribute (username, password, email, mobile), value   [auth]
+ *   GET  /orders    page                                                   [auth]
+ *   POST /order     pro_id                                                 [auth]
+ */
+public class HttpInterface {
+    private final HttpServer server;
+
+    /**
+     * Create the server on a port; call {@link #start()} to accept requests.
+     */
+    public HttpInterface(int port) throws IOException {
+        // Small JSON replies otherwise wait on Nagle's algorithm and delayed ACKs (~40 ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/login", exchange -> handle(exchange, "POST", this::login));
+        server.createContext("/logout", exchange -> handle(exchange, "POST", this::logout));
+        server.createContext("/register", exchange -> handle(exchange, "POST", this::register));
+        server.createContext("/products", exchange -> handle(exchange, "GET", this::products));
+        server.createContext("/profile", exchange -> handle(exchange, "POST", this::profile));
+        server.createContext("/orders", exchange -> handle(exchange, "GET", this::orders));
+        server.createContext("/order", exchange -> handle(exchange, "POST", this::placeOrder));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    // Endpoint body: returns the status code and writes the JSON into the builder
+    private interface Endpoint {
+        int serve(HttpExchange exchange, Map<String, String> params, StringBuilder json) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, String method, Endpoint endpoint) throws IOException {
+        StringBuilder json = new StringBuilder();
+        int status;
+        try {
+            if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+                status = error(json, 405, "Use " + method);
+            } else {
+                status = endpoint.serve(exchange, readParams(exchange), json);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error serving " + exchange.getRequestURI() + ": " + e.getMessage());
+            json.setLength(0);
+            status = error(json, 500, "Internal error");
+        }
+
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private int login(HttpExchange exchange, Map<String, String> params, StringBuilder json) {
+        User user = UserOperation.getInstance().login(params.get("username"), params.get("password"));
+        if (user == null) {
+            return error(json, 401, "Invalid username or password");
+        }
+        json.append("{\"token\":").append(quote(SessionOperation.getInstance().createSession(user)))
+                .append(",\"user\":");
+        appendUser(json, user);
+        json.append('}');
+        return 200;
+    }
+
+    private int logout(HttpExchange exchange, Map<String, String> params, StringBuilder json) {
+        SessionOperation.getInstance().endSession(bearerToken(exchange));
+        json.append("{\"logged_out\":true}");
+        return 200;
+    }
+
+    private int register(HttpExchange exchange, Map<String, String> params, StringBuilder json) {
+        String userName = params.get("username");
+        String password = params.get("password");
+        String email = params.get("email");
+        String mobile = params.get("mobile");
+        if (userName == null || password == null || email == null || mobile == null) {
+            return error(json, 400, "username, password, email and mobile are required");
+        }
+        // Answer only once the new customer is durable
+        if (!CustomerOperation.getInstance().registerCustomer(userName, password, email, mobile).join()) {
+            return error(json, 400, "Failed to register. Check your input.");
+        }
+        json.append("{\"registered\":").append(quote(userName.trim())).append('}');
+        return 201;
+    }
+
+    private int products(HttpExchange exchange, Map<String, String> params, StringBuilder json) {
+        ProductOperation productOp = ProductOperation.getInstance();
+        String keyword = params.get("keyword");
+        if (keyword != null && !keyword.isBlank()) {
+            List<Product> products = productOp.getProductListByKeyword(keyword);
+            appendList(json, "products", products, HttpInterface::appendProduct, null);
+            return 200;
+        }
+        if (params.containsKey("cursor") || params.containsKey("size")) {
+            String cursor = params.get("cursor");
+            ProductListResult result = productOp.getProductList(
+                    cursor == null || cursor.isEmpty() ? null : cursor, intParam(params, "size", 10));
+            appendList(json, "products", result.getProducts(), HttpInterface::appendProduct, result.getNextCursor());
+            return 200;
+        }
+        ProductListResult result = productOp.getProductList(intParam(params, "page", 1));
+        appendPage(json, "products", result.getProducts(), HttpInterface::appendProduct,
+                result.getCurrentPage(), result.getTotalPages());
+        return 200;
+    }
+
+    private int profile(HttpExchange exchange, Map<String, String> params, StringBuilder json) {
+        User user = authenticate(exchange);
+        if (!(user instanceof Customer)) {
+            return error(json, 401, "Customer login required");
+        }
+        String attribute = params.get("attribute");
+        String value = params.get("value");
+        if (attribute == null || value == null) {
+            return error(json, 400, "attribute and value are required");
+        }
+        if (!CustomerOperation.getInstance().updateProfile(attribute, value, (Customer) user).join()) {
+            return error(json, 400, "Failed to update profile. Check your input.");
+        }
+        appendUser(json, user);
+        return 200;
+    }
+
+    private int orders(HttpExchange exchange, Map<String, String> params, StringBuilder json) {
+        User user = authenticate(exchange);
+        if (!(user instanceof Customer)) {
+            return error(json, 401, "Customer login required");
+        }
+        OrderListResult result = OrderOperation.getInstance()
+                .getOrdersByUser(user.getUserId(), intParam(params, "page", 1));
+        appendPage(json, "orders", result.getOrders(), HttpInterface::appendOrder,
+                result.getCurrentPage(), result.getTotalPages());
+        return 200;
+    }
+
+    // Waits for the order to be stored; a full order queue answers 503 so clients back off
+    private int placeOrder(HttpExchange exchange, Map<String, String> params, StringBuilder json) {
+        User user = authenticate(exchange);
+        if (!(user instanceof Customer)) {
+            return error(json, 401, "Customer login required");
+        }
+        String proId = params.get("pro_id");
+        if (proId == null || proId.isBlank()) {
+            return error(json, 400, "pro_id is required");
+        }
+        try {
+            Order order = OrderOperation.getInstance().placeOrder(user.getUserId(), proId.trim()).join();
+            appendOrder(json, order);
+            return 201;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IllegalArgumentException) {
+                return error(json, 400, e.getCause().getMessage());
+            }
+            if (e.getCause() instanceof RejectedExecutionException) {
+                return error(json, 503, e.getCause().getMessage());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Resolve a session token, or failing that HTTP Basic credentials, to a user.
+     *
+     * @return the user, or null if the header is missing, the session expired or the login fails
+     */
+    private User authenticate(HttpExchange exchange) {
+        String token = bearerToken(exchange);
+        if (token != null) {
+            return SessionOperation.getInstance().getUser(token);
+        }
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            return null;
+        }
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()),
+                    StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int colon = credentials.indexOf(':');
+        if (colon < 0) {
+            return null;
+        }
+        return UserOperation.getInstance().login(credentials.substring(0, colon), credentials.substring(colon + 1));
+    }
+
+    // Token of an "Authorization: Bearer" header, or null
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return header.substring(7).trim();
+    }
+
+    // Query string plus, for POST, the form-encoded body
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        if (exchange.getRequestMethod().equalsIgnoreCase("POST")) {
+            parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static int intParam(Map<String, String> params, String name, int fallback) {
+        try {
+            return params.containsKey(name) ? Integer.parseInt(params.get(name)) : fallback;
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    // Public user fields only; the password never leaves the server
+    private static void appendUser(StringBuilder json, User user) {
+        json.append("{\"user_id\":").append(quote(user.getUserId()))
+                .append(",\"user_name\":").append(quote(user.getUserName()))
+                .append(",\"user_role\":").append(quote(user.getUserRole()));
+        if (user instanceof Customer) {
+            json.append(",\"user_email\":").append(quote(((Customer) user).getUserEmail()))
+                    .append(",\"user_mobile\":").append(quote(((Customer) user).getUserMobile()));
+        }
+        json.append('}');
+    }
+
+    private static void appendProduct(StringBuilder json, Product product) {
+        json.append("{\"pro_id\":").append(quote(product.getProId()))
+                .append(",\"pro_model\":").append(quote(product.getProModel()))
+                .append(",\"pro_category\":").append(quote(product.getProCategory()))
+                .append(",\"pro_name\":").append(quote(product.getProName()))
+                .append(",\"pro_current_price\":").append(number(product.getProCurrentPrice()))
+                .append(",\"pro_raw_price\":").append(number(product.getProRawPrice()))
+                .append(",\"pro_discount\":").append(number(product.getProDiscount()))
+                .append(",\"pro_likes_count\":").append(product.getProLikesCount())
+                .append('}');
+    }
+
+    private static void appendOrder(StringBuilder json, Order order) {
+        json.append("{\"order_id\":").append(quote(order.getOrderId()))
+                .append(",\"user_id\":").append(quote(order.getUserId()))
+                .append(",\"pro_id\":").append(quote(order.getProId()))
+                .append(",\"order_time\":").append(quote(order.getOrderTime()))
+                .append('}');
+    }
+
+    private static <T> void appendItems(StringBuilder json, String name, List<T> items,
+                                        BiConsumer<StringBuilder, T> item) {
+        json.append(quote(name)).append(":[");
+        for (int i = 0; i < items.size(); i++) {
+            json.append(i == 0 ? "" : ",");
+            item.accept(json, items.get(i));
+        }
+        json.append(']');
+    }
+
+    private static <T> void appendList(StringBuilder json, String name, List<T> items,
+                                       BiConsumer<StringBuilder, T> item, String nextCursor) {
+        json.append('{');
+        appendItems(json, name, items, item);
+        if (nextCursor != null) {
+            json.append(",\"next_cursor\":").append(quote(nextCursor));
+        }
+        json.append('}');
+    }
+
+    private static <T> void appendPage(StringBuilder json, String name, List<T> items,
+                                       BiConsumer<StringBuilder, T> item, int page, int totalPages) {
+        json.append('{');
+        appendItems(json, name, items, item);
+        json.append(",\"page\":").append(page).append(",\"total_pages\":").append(totalPages).append('}');
+    }
+
+    private static int error(StringBuilder json, int status, String message) {
+        json.append("{\"error\":").append(quote(message)).append('}');
+        return status;
+    }
+
+    // Two decimals like the data files, but always with a '.' whatever the default locale
+    private static String number(double value) {
+        return Double.isFinite(value) ? String.format(Locale.ROOT, "%.2f", value) : "null";
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -71,7 +71,8 @@ public class IOInterface {
         System.out.println("3. Show products (use '3 keyword' to search)");
         System.out.println("4. Show history orders");
         System.out.println("5. Generate all consumption figures");
-        System.out.println("6. Logout");
+        System.out.println("6. Place an order (use '6 product_id')");
+        System.out.println("7. Logout");
     }
 
     /**
@@ -4,65 +4,37 @@ import model.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 
 public class AdminOperation {
-    // Singleton instance to ensure only one AdminOperation object exists
-    private static AdminOperation instance;
-
-    // List to hold all admin users loaded from file or created in runtime
+    // List to hold all admin users loaded through UserOperation or created in runtime
     private List<Admin> admins;
 
     // Private constructor to prevent creating multiple instances
     private AdminOperation() {
         admins = new ArrayList<>();
-        loadAdminsFromFile();  // Load admin data from file when object is instantiated
+        // Load admins from UserOperation's loaded data
+        for (User user : UserOperation.getInstance().getAllUsers()) {
+            if (user instanceof Admin) {
+                admins.add((Admin) user);
+            }
+        }
     }
 
     // Public method to get the singleton instance of AdminOperation
     public static AdminOperation getInstance() {
-        if (instance == null) {
-            instance = new AdminOperation(); // Create instance if it does not exist yet
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
 
-    /**
-     * Loads admins from a  file.
-     * Each line in the file should contain:
-     * userId,userName,password,registerTime,role
-     * Example line: u_0000000001,admin,admin123,01-01-2023_00:00:00,admin
-     */
-    private void loadAdminsFromFile() {
-        String filePath = "admins.txt"; // Path to the admins data file
-
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            // Read the file line by line
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");  // Split line into components by comma
-                if (parts.length == 5) {           // Check if line format is valid
-                    // Create Admin object with trimmed strings to avoid whitespace issues
-                    Admin admin = new Admin(parts[0].trim(), parts[1].trim(), parts[2].trim(),
-                            parts[3].trim(), parts[4].trim());
-                    admins.add(admin);  // Add loaded admin to the admins list
-                } else {
-                    System.out.println("Skipping invalid admin line: " + line);  // Notify on bad format
-                }
-            }
-        } catch (IOException e) {
-            // If file is missing or unreadable, print error message but allow app to continue
-            System.out.println("Failed to load admins from file: " + e.getMessage());
-        }
+    // Created on first use; class initialization makes this thread-safe
+    private static class Holder {
+        private static final AdminOperation INSTANCE = new AdminOperation();
     }
 
     /**
      * Registers a default admin if none exist.
      * This is useful for initial setup or first run of the application.
      */
-    public void registerAdmin() {
+    public synchronized void registerAdmin() {
         // If admins list is already populated, do not register again
         if (!admins.isEmpty()) {
             return;
@@ -73,12 +45,13 @@ public class AdminOperation {
         String adminId = userOp.generateUniqueUserId();
 
         // Create a default admin user with preset values
-        Admin admin = new Admin(adminId, "admin", "admin123",
+        Admin admin = new Admin(adminId, "admin", userOp.encryptPassword("admin123"),
                 "01-01-2023_00:00:00", "admin");
 
-        admins.add(admin);  // Add the new admin to the list
-
-
+        // Persist it with the other users, unless an "admin" user already exists
+        if (userOp.registerUser(admin).join()) {
+            admins.add(admin);
+        }
     }
 
     /**
@@ -0,0 +1,51 @@
+package operation;
+
+import java.util.*;
+
+/**
+ * Per-product sales counters plus an ordering by count, so top-N queries
+ * read the first N entries instead of grouping every order.
+ * Each sale updates one counter and re-positions one entry.
+ */
+final class BestSellerTracker {
+    // Highest count first, product ID breaks ties
+    private static final Comparator<Map.Entry<String, Integer>> BY_SALES =
+            Comparator.comparing((Map.Entry<String, Integer> e) -> e.getValue()).reversed()
+                    .thenComparing(Map.Entry::getKey);
+
+    private final Map<String, Integer> counts = new HashMap<>();
+    private final TreeSet<Map.Entry<String, Integer>> ranking = new TreeSet<>(BY_SALES);
+
+    // Orders without a product ID are not counted
+    void recordSale(String proId) {
+        if (proId == null) {
+            return;
+        }
+        Integer old = counts.get(proId);
+        int count = (old == null ? 0 : old) + 1;
+        if (old != null) {
+            ranking.remove(Map.entry(proId, old));
+        }
+        counts.put(proId, count);
+        ranking.add(Map.entry(proId, count));
+    }
+
+    void clear() {
+        counts.clear();
+        ranking.clear();
+    }
+
+    /**
+     * The n best-selling product IDs with their sales counts, best first.
+     */
+    LinkedHashMap<String, Integer> top(int n) {
+        LinkedHashMap<String, Integer> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : ranking) {
+            if (top.size() >= n) {
+                break;
+            }
+            top.put(entry.getKey(), entry.getValue());
+        }
+        return top;
+    }
+}
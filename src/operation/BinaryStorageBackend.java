@@ -0,0 +1,58 @@
+package operation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact backend that stores records only in the binary snapshot format
+ * (users.bin, products.bin, orders.bin). On first use it imports the
+ * existing .txt file so switching backends keeps the data.
+ *
+ * @param <T> record type
+ */
+final class BinaryStorageBackend<T> implements StorageBackend<T> {
+    private final File textFile;
+    private final File binaryFile;
+    private final RecordCodec<T> codec;
+
+    BinaryStorageBackend(File textFile, RecordCodec<T> codec) {
+        this.textFile = textFile;
+        this.binaryFile = new File(textFile.getPath().replaceFirst("\\.txt$", "") + ".bin");
+        this.codec = codec;
+    }
+
+    @Override
+    public List<T> loadAll() {
+        if (binaryFile.exists()) {
+            List<T> records = RecordSnapshot.read(binaryFile, codec);
+            if (records != null) {
+                return records;
+            }
+            System.err.println("Ignoring unreadable " + binaryFile);
+        }
+        if (!textFile.exists()) {
+            return new ArrayList<>();
+        }
+
+        // One-time import from the text file
+        List<T> records = new TextStorageBackend<>(textFile, codec).loadAll();
+        try {
+            writeAll(records);
+        } catch (IOException e) {
+            System.err.println("Error writing " + binaryFile + ": " + e.getMessage());
+        }
+        return records;
+    }
+
+    @Override
+    public void writeAll(List<T> records) throws IOException {
+        RecordSnapshot.write(binaryFile, records, codec);
+    }
+
+    @Override
+    public File location() {
+        return binaryFile;
+    }
+}
@@ -0,0 +1,393 @@
+package operation;
+
+import model.Order;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Order history stored as Deflate-compressed blocks of a fixed number of
+ * records (orders.blk) plus a block index (orders.blk.idx).
+ * Every block but the last is full, so the block holding a given position is
+ * found by division and a page only inflates the blocks it touches.
+ *
+ * Index layout: magic, version, records per block, record count, block count,
+ * then the offset (long) and compressed length (int) of each block.
+ *
+ * The block file is the only copy of the orders: appends and clears never
+ * touch the text file. It is imported when there are no blocks yet or when
+ * it is newer than the block file (another storage mode wrote it), and it is
+ * written back only by {@link #exportText()}.
+ */
+final class BlockOrderStore implements PagedOrderStore {
+    private static final int MAGIC = 0x4F4F5042;  // "OOPB"
+    private static final short VERSION = 1;
+    private static final int BLOCK_RECORDS = 256;
+
+    // Unused bytes tolerated in the block file before append compacts it
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+    private final File textFile;
+    private final File blockFile;
+    private final File indexFile;
+
+    private int count;
+    private long[] blockOffsets = new long[0];
+    private int[] blockLengths = new int[0];
+
+    // Last inflated block, so paging within one block inflates it once
+    private int cachedBlock = -1;
+    private List<Order> cachedOrders;
+
+    BlockOrderStore(String textFile) {
+        this.textFile = new File(textFile);
+        this.blockFile = blockFileFor(textFile);
+        this.indexFile = new File(blockFile.getPath() + ".idx");
+        try {
+            if (!readIndex() || this.textFile.lastModified() > blockFile.lastModified()) {
+                importText();
+            }
+        } catch (IOException e) {
+            System.err.println("Error opening order blocks: " + e.getMessage());
+        }
+    }
+
+    private static File blockFileFor(String textFile) {
+        return new File(textFile.replaceFirst("\\.txt$", "") + ".blk");
+    }
+
+    /**
+     * Bring the text file up to date if blocks mode changed the orders after
+     * it was last written, for the storage modes that read it instead.
+     */
+    static void exportIfNewer(String textFile) throws IOException {
+        File blockFile = blockFileFor(textFile);
+        if (blockFile.exists() && blockFile.lastModified() > new File(textFile).lastModified()) {
+            new BlockOrderStore(textFile).exportText();
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public synchronized List<Order> getRange(int from, int to) {
+        List<Order> page = new ArrayList<>();
+        from = Math.max(0, from);
+        to = Math.min(to, count);
+        for (int block = from / BLOCK_RECORDS; from < to; block++) {
+            List<Order> orders = readBlock(block);
+            int blockStart = block * BLOCK_RECORDS;
+            int start = from - blockStart;
+            int end = Math.min(to - blockStart, orders.size());
+            // A block that failed to read comes back short; return what was read
+            if (start >= end) {
+                break;
+            }
+            page.addAll(orders.subList(start, end));
+            from = blockStart + end;
+            if (end < BLOCK_RECORDS) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Re-pack the partly filled last block with the new orders into fresh
+     * blocks at the end of the block file. The old
+     * copy of that block stays behind as unused bytes; once those outweigh
+     * the live blocks the file is rewritten without them.
+     */
+    @Override
+    public synchronized void append(List<Order> orders) throws IOException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        int fullBlocks = count / BLOCK_RECORDS;
+        List<Order> pending = new ArrayList<>();
+        if (fullBlocks < blockOffsets.length) {
+            pending.addAll(readBlock(fullBlocks));
+            if (pending.size() != count - fullBlocks * BLOCK_RECORDS) {
+                throw new IOException("Cannot re-pack order block " + fullBlocks);
+            }
+        }
+        pending.addAll(orders);
+
+        int blocks = fullBlocks + (pending.size() + BLOCK_RECORDS - 1) / BLOCK_RECORDS;
+        long[] offsets = Arrays.copyOf(blockOffsets, blocks);
+        int[] lengths = Arrays.copyOf(blockLengths, blocks);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (RandomAccessFile out = new RandomAccessFile(blockFile, "rw")) {
+            long offset = out.length();
+            out.seek(offset);
+            for (int from = 0, block = fullBlocks; from < pending.size(); from += BLOCK_RECORDS, block++) {
+                byte[] compressed = compress(deflater,
+                        pending.subList(from, Math.min(from + BLOCK_RECORDS, pending.size())));
+                out.write(compressed);
+                offsets[block] = offset;
+                lengths[block] = compressed.length;
+                offset += compressed.length;
+            }
+            out.getChannel().force(true);
+        } finally {
+            deflater.end();
+        }
+        writeIndex(fullBlocks * BLOCK_RECORDS + pending.size(), offsets, lengths);
+
+        long live = 0;
+        for (int length : blockLengths) {
+            live += length;
+        }
+        if (blockFile.length() - live > Math.max(live, MIN_COMPACT_BYTES)) {
+            try {
+                compact();
+            } catch (IOException e) {
+                // The appended orders are already durable; retry on a later append
+                System.err.println("Error compacting order blocks: " + e.getMessage());
+            }
+        }
+    }
+
+    // Rewrite the live blocks into a fresh block file, dropping replaced copies
+    private void compact() throws IOException {
+        int total = count;
+        int[] next = {0};
+        writeBlocks(() -> {
+            if (next[0] >= total) {
+                return null;
+            }
+            int block = next[0] / BLOCK_RECORDS;
+            List<Order> orders = readBlock(block);
+            if (next[0] - block * BLOCK_RECORDS >= orders.size()) {
+                throw new IOException("Cannot read order block " + block);
+            }
+            return orders.get(next[0]++ - block * BLOCK_RECORDS);
+        });
+    }
+
+    @Override
+    public synchronized void clear() throws IOException {
+        writeBlocks(() -> null);
+    }
+
+    /**
+     * Write every order to the text file, replacing it atomically. The text
+     * file then takes the block file's timestamp, so it is not imported back.
+     */
+    synchronized void exportText() throws IOException {
+        File tmp = new File(textFile.getPath() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp);
+             Writer out = new BufferedWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8))) {
+            for (int from = 0; from < count; from += BLOCK_RECORDS) {
+                int to = Math.min(from + BLOCK_RECORDS, count);
+                List<Order> orders = getRange(from, to);
+                // A short block would silently drop orders from the only other copy
+                if (orders.size() != to - from) {
+                    throw new IOException("Cannot read order block " + from / BLOCK_RECORDS);
+                }
+                for (Order order : orders) {
+                    out.write(RecordCodec.ORDERS.format(order));
+                    out.write('\n');
+                }
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(tmp.toPath(), textFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (!textFile.setLastModified(blockFile.lastModified())) {
+            System.err.println("Could not set the time of " + textFile);
+        }
+    }
+
+    private List<Order> readBlock(int block) {
+        if (block == cachedBlock) {
+            return cachedOrders;
+        }
+        List<Order> orders = new ArrayList<>(BLOCK_RECORDS);
+        try (RandomAccessFile data = new RandomAccessFile(blockFile, "r")) {
+            byte[] compressed = new byte[blockLengths[block]];
+            data.seek(blockOffsets[block]);
+            data.readFully(compressed);
+
+            Inflater inflater = new Inflater();
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(compressed.length * 4);
+            try {
+                inflater.setInput(compressed);
+                byte[] buffer = new byte[8192];
+                while (!inflater.finished()) {
+                    int n = inflater.inflate(buffer);
+                    if (n == 0 && inflater.needsInput()) {
+                        throw new IOException("Truncated order block " + block);
+                    }
+                    raw.write(buffer, 0, n);
+                }
+            } finally {
+                inflater.end();
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw.toByteArray()));
+            int records = in.readInt();
+            for (int i = 0; i < records; i++) {
+                orders.add(RecordCodec.ORDERS.read(in));
+            }
+        } catch (IOException | DataFormatException e) {
+            // Not cached, so the next page retries the read
+            System.err.println("Error reading order block " + block + ": " + e.getMessage());
+            return orders;
+        }
+        cachedBlock = block;
+        cachedOrders = orders;
+        return orders;
+    }
+
+    /**
+     * Stream the text file into blocks without holding it all in memory.
+     */
+    private void importText() throws IOException {
+        if (!textFile.exists()) {
+            writeBlocks(() -> null);
+            return;
+        }
+        RecordParser parser = new RecordParser();
+        try (BufferedReader reader = new BufferedReader(
+                new FileReader(textFile, StandardCharsets.UTF_8))) {
+            writeBlocks(() -> {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Order order = parser.parseOrder(line);
+                    if (order != null) {
+                        return order;
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    // Supplies orders one at a time, null at the end
+    private interface OrderSource {
+        Order next() throws IOException;
+    }
+
+    // Rewrite the block file and index from scratch, swapping both in atomically
+    private void writeBlocks(OrderSource source) throws IOException {
+        List<Long> offsets = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        int total = 0;
+
+        File tmpBlocks = new File(blockFile.getPath() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (FileOutputStream out = new FileOutputStream(tmpBlocks)) {
+            long offset = 0;
+            List<Order> block = new ArrayList<>(BLOCK_RECORDS);
+            Order order;
+            do {
+                order = source.next();
+                if (order != null) {
+                    block.add(order);
+                }
+                if (block.size() == BLOCK_RECORDS || (order == null && !block.isEmpty())) {
+                    byte[] compressed = compress(deflater, block);
+                    out.write(compressed);
+                    offsets.add(offset);
+                    lengths.add(compressed.length);
+                    offset += compressed.length;
+                    total += block.size();
+                    block.clear();
+                }
+            } while (order != null);
+            out.getChannel().force(true);
+        } finally {
+            deflater.end();
+        }
+
+        Files.move(tmpBlocks.toPath(), blockFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writeIndex(total, offsets.stream().mapToLong(Long::longValue).toArray(),
+                lengths.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // Swap in a new index atomically and switch to it
+    private void writeIndex(int total, long[] offsets, int[] lengths) throws IOException {
+        File tmpIndex = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tmpIndex)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(BLOCK_RECORDS);
+            out.writeInt(total);
+            out.writeInt(offsets.length);
+            for (int block = 0; block < offsets.length; block++) {
+                out.writeLong(offsets[block]);
+                out.writeInt(lengths[block]);
+            }
+        }
+        Files.move(tmpIndex.toPath(), indexFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        count = total;
+        blockOffsets = offsets;
+        blockLengths = lengths;
+        cachedBlock = -1;
+        cachedOrders = null;
+    }
+
+    private static byte[] compress(Deflater deflater, List<Order> orders) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(raw);
+        out.writeInt(orders.size());
+        for (Order order : orders) {
+            RecordCodec.ORDERS.write(out, order);
+        }
+        out.flush();
+
+        deflater.reset();
+        deflater.setInput(raw.toByteArray());
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.size() / 4);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            compressed.write(buffer, 0, n);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * @return false if there is no usable index
+     */
+    private boolean readIndex() throws IOException {
+        if (!indexFile.exists() || !blockFile.exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION || in.readInt() != BLOCK_RECORDS) {
+                return false;
+            }
+            count = in.readInt();
+            int blocks = in.readInt();
+            blockOffsets = new long[blocks];
+            blockLengths = new int[blocks];
+            for (int block = 0; block < blocks; block++) {
+                blockOffsets[block] = in.readLong();
+                blockLengths[block] = in.readInt();
+            }
+            return true;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+}
@@ -2,16 +2,17 @@ package operation;
 
 import model.*;
 
-import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Pattern;
 
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 
 public class CustomerOperation {
-    private static CustomerOperation instance;
     private List<Customer> customers;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();  // Guards the customers list
 
     private CustomerOperation() {
         customers = new ArrayList<>();
@@ -25,10 +26,12 @@ public class CustomerOperation {
     }
 
     public static CustomerOperation getInstance() {
-        if (instance == null) {
-            instance = new CustomerOperation();
-        }
-        return instance;
+        return Holder.INSTANCE;
+    }
+
+    // Created on first use; class initialization makes this thread-safe
+    private static class Holder {
+        private static final CustomerOperation INSTANCE = new CustomerOperation();
     }
 
     public boolean validateEmail(String userEmail) {
@@ -41,8 +44,15 @@ public class CustomerOperation {
         return pattern.matcher(userMobile).matches();
     }
 
-    public boolean registerCustomer(String userName, String userPassword,
-                                    String userEmail, String userMobile) {
+    /**
+     * Validate and register a new customer.
+     *
+     * @return a future completed with true once the customer is durable, or
+     *         completed with false at once if the input is invalid or the
+     *         username is taken
+     */
+    public CompletableFuture<Boolean> registerCustomer(String userName, String userPassword,
+                                                       String userEmail, String userMobile) {
         UserOperation userOp = UserOperation.getInstance();
 
         userName = userName.trim();
@@ -50,26 +60,21 @@ public class CustomerOperation {
         userEmail = userEmail.trim();
         userMobile = userMobile.trim();
 
-        if (userOp.checkUsernameExist(userName)) {
-            System.out.println("DEBUG: Username already exists: " + userName);
-            return false;
-        }
-
         if (!userOp.validateUsername(userName)) {
             System.out.println("DEBUG: Invalid username: " + userName);
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
         if (!userOp.validatePassword(userPassword)) {
             System.out.println("DEBUG: Invalid password.");
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
         if (!validateEmail(userEmail)) {
             System.out.println("DEBUG: Invalid email: " + userEmail);
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
         if (!validateMobile(userMobile)) {
             System.out.println("DEBUG: Invalid mobile: " + userMobile);
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
         String userId = userOp.generateUniqueUserId();
@@ -80,94 +85,127 @@ public class CustomerOperation {
 
         Customer customer = new Customer(userId, userName, userOp.encryptPassword(userPassword),
                 registerTime, "customer", userEmail, userMobile);
-        customers.add(customer);
-        userOp.addUser(customer);
-        saveAllUsers(userOp.getAllUsers());
+        // Username check and insert are one step, so concurrent sign-ups cannot both win
+        CompletableFuture<Boolean> durable = userOp.registerUser(customer);
+        if (durable.isDone() && !durable.isCompletedExceptionally() && !durable.join()) {
+            System.out.println("DEBUG: Username already exists: " + userName);
+            return durable;
+        }
+        lock.writeLock().lock();
+        try {
+            customers.add(customer);
+        } finally {
+            lock.writeLock().unlock();
+        }
 
         System.out.println("DEBUG: Customer registered successfully: " + userName);
-        return true;
+        return durable;
     }
 
-    public boolean updateProfile(String attributeName, String value, Customer customerObject) {
-        value = value.trim();
-        boolean updated = false;
+    /**
+     * Validate and change one attribute of a customer's profile.
+     *
+     * @return a future completed with true once the change is durable, or
+     *         completed with false at once if the input is invalid
+     */
+    public CompletableFuture<Boolean> updateProfile(String attributeName, String value, Customer customerObject) {
+        String newValue = value.trim();
         UserOperation userOp = UserOperation.getInstance();
 
         switch (attributeName.toLowerCase()) {
             case "username":
-                if (userOp.validateUsername(value)) {
-                    customerObject.setUserName(value);
-                    updated = true;
+                // Renaming also journals the user
+                if (!userOp.validateUsername(newValue) || !userOp.changeUsername(customerObject, newValue)) {
+                    return CompletableFuture.completedFuture(false);
                 }
-                break;
+                return userOp.updateUser(customerObject, c -> true);
             case "password":
-                if (userOp.validatePassword(value)) {
-                    customerObject.setUserPassword(userOp.encryptPassword(value));
-                    updated = true;
+                if (!userOp.validatePassword(newValue)) {
+                    return CompletableFuture.completedFuture(false);
                 }
-                break;
+                String encrypted = userOp.encryptPassword(newValue);
+                return userOp.updateUser(customerObject, c -> {
+                    c.setUserPassword(encrypted);
+                    return true;
+                });
             case "email":
-                if (validateEmail(value)) {
-                    customerObject.setUserEmail(value);
-                    updated = true;
+                if (!validateEmail(newValue)) {
+                    return CompletableFuture.completedFuture(false);
                 }
-                break;
+                return userOp.updateUser(customerObject, c -> {
+                    c.setUserEmail(newValue);
+                    return true;
+                });
             case "mobile":
-                if (validateMobile(value)) {
-                    customerObject.setUserMobile(value);
-                    updated = true;
+                if (!validateMobile(newValue)) {
+                    return CompletableFuture.completedFuture(false);
                 }
-                break;
+                return userOp.updateUser(customerObject, c -> {
+                    c.setUserMobile(newValue);
+                    return true;
+                });
+            default:
+                return CompletableFuture.completedFuture(false);
         }
-
-        if (updated) {
-            saveAllUsers(userOp.getAllUsers());
-        }
-        return updated;
     }
 
 
 
     public CustomerListResult getCustomerList(int pageNumber) {
-        int pageSize = 10;
-        int totalPages = (int) Math.ceil((double) customers.size() / pageSize);
+        lock.readLock().lock();
+        try {
+            int pageSize = 10;
+            int totalPages = (int) Math.ceil((double) customers.size() / pageSize);
 
-        if (pageNumber < 1 || pageNumber > totalPages) {
-            return new CustomerListResult(new ArrayList<>(), 0, 0);
-        }
+            if (pageNumber < 1 || pageNumber > totalPages) {
+                return new CustomerListResult(new ArrayList<>(), 0, 0);
+            }
 
-        int fromIndex = (pageNumber - 1) * pageSize;
-        int toIndex = Math.min(fromIndex + pageSize, customers.size());
+            int fromIndex = (pageNumber - 1) * pageSize;
+            int toIndex = Math.min(fromIndex + pageSize, customers.size());
 
-        return new CustomerListResult(
-                customers.subList(fromIndex, toIndex),
-                pageNumber,
-                totalPages
-        );
+            return new CustomerListResult(
+                    new ArrayList<>(customers.subList(fromIndex, toIndex)),
+                    pageNumber,
+                    totalPages
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    public void deleteAllCustomers() {
-        customers.clear();
-        List<User> remainingUsers = new ArrayList<>();
-        for (User user : UserOperation.getInstance().getAllUsers()) {
-            if (!(user instanceof Customer)) {
-                remainingUsers.add(user);
+    /**
+     * Get a page of customers in registration order, resuming at a cursor.
+     * Customers are only appended (or all deleted), so a cursor holds the
+     * position of the next customer and each page is read directly from there.
+     *
+     * @param cursor   cursor of the previous page, or null for the first page
+     * @param pageSize number of customers per page
+     */
+    public CustomerListResult getCustomerList(String cursor, int pageSize) {
+        lock.readLock().lock();
+        try {
+            int from = cursor == null ? 0 : PageCursor.decodePosition("customers", cursor);
+            if (pageSize < 1 || from < 0) {
+                return new CustomerListResult(new ArrayList<>(), null);
             }
+
+            int to = (int) Math.min((long) from + pageSize, customers.size());
+            List<Customer> page = from >= to ? new ArrayList<>() : new ArrayList<>(customers.subList(from, to));
+            String nextCursor = to < customers.size() ? PageCursor.encode("customers", String.valueOf(to)) : null;
+            return new CustomerListResult(page, nextCursor);
+        } finally {
+            lock.readLock().unlock();
         }
-        saveAllUsers(remainingUsers);
     }
 
-
-    // Helper method to save all users (admin + customers) to file
-    private void saveAllUsers(List<User> userList) {
-        File file = new File("data/users.txt");
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            for (User user : userList) {
-                writer.write(user.toString());
-                writer.newLine();
-            }
-        } catch (IOException e) {
-            System.err.println("Error saving users: " + e.getMessage());
+    public CompletableFuture<Void> deleteAllCustomers() {
+        lock.writeLock().lock();
+        try {
+            customers.clear();
+            return UserOperation.getInstance().deleteAllCustomers();
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 }
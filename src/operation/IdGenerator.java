@@ -0,0 +1,85 @@
+package operation;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style ID generator: every ID packs the milliseconds since a
+ * fixed epoch (41 bits), a node number (10 bits) and a sequence within the
+ * millisecond (12 bits) into one long, so IDs are unique across threads and,
+ * with distinct node numbers, across processes.
+ *
+ * The last issued value lives in an AtomicLong and each ID is one CAS on it,
+ * without a lock. IDs never go backwards: if the clock steps back or the
+ * sequence of a millisecond runs out, the generator keeps counting from the
+ * last ID and borrows the next millisecond instead of waiting.
+ *
+ * The node number is set with the system property "node.id" (0-1023, default 0).
+ */
+final class IdGenerator {
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIME_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    // Digits of the largest long, so IDs of one prefix also sort as strings
+    private static final int DIGITS = 19;
+
+    private static final long NODE = nodeFromProperty();
+
+    static final IdGenerator USERS = new IdGenerator("u_");
+    static final IdGenerator ORDERS = new IdGenerator("o_");
+    static final IdGenerator PRODUCTS = new IdGenerator("p_");
+
+    private final String prefix;
+    private final AtomicLong last = new AtomicLong();
+
+    private IdGenerator(String prefix) {
+        this.prefix = prefix;
+    }
+
+    private static long nodeFromProperty() {
+        long node = Long.getLong("node.id", 0);
+        if (node < 0 || node > MAX_NODE) {
+            System.err.println("Ignoring node.id " + node + ", must be 0-" + MAX_NODE);
+            return 0;
+        }
+        return node;
+    }
+
+    /**
+     * Next ID as a number, strictly greater than every earlier one.
+     */
+    long nextValue() {
+        long base = ((System.currentTimeMillis() - EPOCH_MILLIS) << TIME_SHIFT) | (NODE << SEQUENCE_BITS);
+        while (true) {
+            long previous = last.get();
+            long next;
+            if (base > previous) {
+                next = base;
+            } else if ((previous & MAX_SEQUENCE) < MAX_SEQUENCE) {
+                next = previous + 1;
+            } else {
+                // Sequence used up: move on to the following millisecond
+                next = (((previous >>> TIME_SHIFT) + 1) << TIME_SHIFT) | (NODE << SEQUENCE_BITS);
+            }
+            if (last.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Next ID as a string: the prefix and the zero-padded number.
+     */
+    String nextId() {
+        String digits = Long.toString(nextValue());
+        StringBuilder id = new StringBuilder(prefix.length() + DIGITS).append(prefix);
+        for (int i = digits.length(); i < DIGITS; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
+    }
+}
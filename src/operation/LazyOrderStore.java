@@ -0,0 +1,230 @@
+package operation;
+
+import model.Order;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pages through data/orders.txt without loading it.
+ * A sidecar index (orders.txt.idx) holds the byte offset of every record line,
+ * so a page is one seek into the index, one read of the page's bytes from the
+ * data file and parsing only those lines.
+ *
+ * Index layout: indexed data length (long), record count (int), then one long
+ * offset per record.
+ */
+final class LazyOrderStore implements PagedOrderStore {
+    private static final int HEADER_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int READ_RECORDS = 1024;
+
+    private final File dataFile;
+    private final File indexFile;
+    private final RecordParser parser = new RecordParser();
+
+    private long indexedLength;  // Bytes of the data file covered by the index
+    private int count;           // Number of indexed records
+
+    LazyOrderStore(String dataFile) {
+        this.dataFile = new File(dataFile);
+        this.indexFile = new File(dataFile + ".idx");
+        try {
+            readHeader();
+            if (!indexMatchesData()) {
+                indexedLength = 0;
+                count = 0;
+            }
+            refresh();
+        } catch (IOException e) {
+            System.err.println("Error opening order index: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        refreshQuietly();
+        return count;
+    }
+
+    @Override
+    public synchronized List<Order> getRange(int from, int to) {
+        refreshQuietly();
+        List<Order> page = new ArrayList<>();
+        from = Math.max(0, from);
+        to = Math.min(to, count);
+        if (from >= to) {
+            return page;
+        }
+
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "r");
+             RandomAccessFile data = new RandomAccessFile(dataFile, "r")) {
+            // A bounded number of records per read, so a wide range never needs one huge buffer
+            for (int pieceFrom = from; pieceFrom < to; pieceFrom += READ_RECORDS) {
+                int pieceTo = Math.min(pieceFrom + READ_RECORDS, to);
+                index.seek(HEADER_BYTES + (long) pieceFrom * Long.BYTES);
+                long start = index.readLong();
+                long end = indexedLength;
+                if (pieceTo < count) {
+                    index.seek(HEADER_BYTES + (long) pieceTo * Long.BYTES);
+                    end = index.readLong();
+                }
+
+                byte[] bytes = new byte[Math.toIntExact(end - start)];
+                data.seek(start);
+                data.readFully(bytes);
+
+                for (String line : new String(bytes, StandardCharsets.UTF_8).split("\n")) {
+                    Order order = parseLine(line);
+                    if (order != null) {
+                        page.add(order);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading orders page: " + e.getMessage());
+        }
+        return page;
+    }
+
+    @Override
+    public synchronized void append(List<Order> orders) throws IOException {
+        // The index picks the new lines up on its next refresh
+        PagedOrderStore.appendLines(dataFile.getPath(), orders);
+        refresh();
+    }
+
+    @Override
+    public synchronized void clear() throws IOException {
+        File tmp = new File(dataFile.getPath() + ".tmp");
+        Files.write(tmp.toPath(), new byte[0]);
+        Files.move(tmp.toPath(), dataFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        indexedLength = 0;
+        count = 0;
+        writeHeader();
+    }
+
+    private Order parseLine(String line) {
+        line = line.trim();
+        if (!line.startsWith("{") || !line.endsWith("}")) {
+            return null;
+        }
+        try {
+            return parser.parseOrder(line);
+        } catch (Exception e) {
+            System.err.println("Error parsing order: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (IOException e) {
+            System.err.println("Error updating order index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bring the index up to date with the data file: extend it when lines were
+     * appended, rebuild it when the file was rewritten.
+     */
+    private void refresh() throws IOException {
+        long length = dataFile.exists() ? dataFile.length() : 0;
+        if (length < indexedLength) {
+            indexedLength = 0;
+            count = 0;
+        }
+        if (length > indexedLength) {
+            extendIndex(length);
+        } else if (!indexFile.exists()) {
+            writeHeader();
+        }
+    }
+
+    // Scan the data file from the last indexed byte and append new line offsets
+    private void extendIndex(long length) throws IOException {
+        // Drop offsets written after the last committed header, e.g. by a crash
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw")) {
+            index.setLength(HEADER_BYTES + (long) count * Long.BYTES);
+        }
+
+        int added = 0;
+        try (InputStream in = new FileInputStream(dataFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     new FileOutputStream(indexFile, true)))) {
+            in.skipNBytes(indexedLength);
+            byte[] buffer = new byte[1 << 16];
+            boolean lineStart = true;
+            long position = indexedLength;
+            int read;
+            while (position < length && (read = in.read(buffer)) > 0) {
+                for (int i = 0; i < read && position < length; i++, position++) {
+                    byte b = buffer[i];
+                    if (b == '\n') {
+                        lineStart = true;
+                    } else if (lineStart && b == '{') {
+                        out.writeLong(position);
+                        added++;
+                        lineStart = false;
+                    } else if (b != ' ' && b != '\t' && b != '\r') {
+                        lineStart = false;
+                    }
+                }
+            }
+        }
+
+        count += added;
+        indexedLength = length;
+        writeHeader();
+    }
+
+    /**
+     * Cheap check that the data file was not rewritten under the index by
+     * another storage mode: the last indexed offset must still start a record.
+     */
+    private boolean indexMatchesData() throws IOException {
+        if (count == 0) {
+            return true;
+        }
+        if (!dataFile.exists() || dataFile.length() < indexedLength) {
+            return false;
+        }
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "r");
+             RandomAccessFile data = new RandomAccessFile(dataFile, "r")) {
+            index.seek(HEADER_BYTES + (long) (count - 1) * Long.BYTES);
+            long last = index.readLong();
+            data.seek(last);
+            if (data.read() != '{') {
+                return false;
+            }
+            data.seek(indexedLength - 1);
+            int tail = data.read();
+            return tail == '\n' || tail == '}';
+        }
+    }
+
+    private void readHeader() throws IOException {
+        if (!indexFile.exists() || indexFile.length() < HEADER_BYTES) {
+            indexedLength = 0;
+            count = 0;
+            return;
+        }
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "r")) {
+            indexedLength = index.readLong();
+            count = index.readInt();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        try (RandomAccessFile index = new RandomAccessFile(indexFile, "rw")) {
+            index.writeLong(indexedLength);
+            index.writeInt(count);
+            index.setLength(HEADER_BYTES + (long) count * Long.BYTES);
+        }
+    }
+}
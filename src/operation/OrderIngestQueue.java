@@ -0,0 +1,123 @@
+package operation;
+
+import model.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded ring buffer between the threads placing orders and storage.
+ * Producers only enqueue; one writer thread drains whatever has piled up
+ * (up to a batch) and hands it to the batch writer, so many orders share
+ * one lock acquisition, one index update pass and one durable write.
+ *
+ * When the buffer is full, producers wait up to a timeout and are then
+ * rejected, so a burst slows callers down instead of growing memory.
+ * Tuned with "order.queue.capacity" (default 8192), "order.batch.size"
+ * (default 512) and "order.queue.timeout.ms" (default 1000).
+ */
+final class OrderIngestQueue implements Runnable {
+
+    /**
+     * Stores one drained batch, in order.
+     */
+    interface BatchWriter {
+
+        /**
+         * @return a future completed once the batch is durable
+         */
+        CompletableFuture<Void> write(List<Order> batch);
+    }
+
+    // An accepted order and the caller waiting on it
+    private static final class Pending {
+        final Order order;
+        final CompletableFuture<Order> result = new CompletableFuture<>();
+
+        Pending(Order order) {
+            this.order = order;
+        }
+    }
+
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final BatchWriter writer;
+
+    OrderIngestQueue(BatchWriter writer) {
+        this.writer = writer;
+        queue = new ArrayBlockingQueue<>(Math.max(1, Integer.getInteger("order.queue.capacity", 8192)));
+        batchSize = Math.max(1, Integer.getInteger("order.batch.size", 512));
+        offerTimeoutMillis = Long.getLong("order.queue.timeout.ms", 1000);
+
+        Thread thread = new Thread(this, "order-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue an order for the writer.
+     *
+     * @return a future completed with the order once it is stored, or failed
+     *         with RejectedExecutionException if the buffer stayed full
+     */
+    CompletableFuture<Order> submit(Order order) {
+        Pending pending = new Pending(order);
+        try {
+            if (!queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(
+                        new RejectedExecutionException("Too many orders in progress, try again later"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return pending.result;
+    }
+
+    // Number of orders waiting for the writer
+    int backlog() {
+        return queue.size();
+    }
+
+    @Override
+    public void run() {
+        List<Pending> drained = new ArrayList<>(batchSize);
+        List<Order> batch = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                drained.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(drained, batchSize - 1);
+            for (Pending pending : drained) {
+                batch.add(pending.order);
+            }
+
+            CompletableFuture<Void> durable;
+            try {
+                durable = writer.write(new ArrayList<>(batch));
+            } catch (RuntimeException e) {
+                durable = CompletableFuture.failedFuture(e);
+            }
+            List<Pending> done = new ArrayList<>(drained);
+            durable.whenComplete((ignored, error) -> {
+                for (Pending pending : done) {
+                    if (error != null) {
+                        pending.result.completeExceptionally(error);
+                    } else {
+                        pending.result.complete(pending.order);
+                    }
+                }
+            });
+            drained.clear();
+            batch.clear();
+        }
+    }
+}
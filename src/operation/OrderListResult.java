@@ -18,6 +18,9 @@ public class OrderListResult {
     // The total number of pages available
     private int totalPages;
 
+    // Cursor of the following page for keyset pagination, null on the last page
+    private String nextCursor;
+
     /**
      * Constructor to initialize the paginated order list result.
      *
@@ -31,6 +34,17 @@ public class OrderListResult {
         this.totalPages = totalPages;
     }
 
+    /**
+     * Constructor for a keyset page, which carries a cursor instead of page numbers.
+     *
+     * @param orders     List of orders for this page
+     * @param nextCursor Cursor of the following page, or null if this is the last
+     */
+    public OrderListResult(List<Order> orders, String nextCursor) {
+        this(orders, 0, 0);
+        this.nextCursor = nextCursor;
+    }
+
     // Getter for the list of orders
     public List<Order> getOrders() { return orders; }
 
@@ -39,4 +53,7 @@ public class OrderListResult {
 
     // Getter for the total number of pages
     public int getTotalPages() { return totalPages; }
+
+    // Getter for the cursor of the following page (null on the last page)
+    public String getNextCursor() { return nextCursor; }
 }
@@ -2,33 +2,108 @@ package operation;
 
 import model.*;
 
-import java.io.*;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Singleton class responsible for managing Order objects.
  * Supports loading and saving orders from/to a file,
  * creating, deleting, and retrieving orders with pagination.
+ * Safe for concurrent use: reads share a read lock, changes take the write lock.
  */
 public class OrderOperation {
 
-    // Singleton instance
-    private static OrderOperation instance;
-
     // In-memory list of all orders
     private List<Order> orders;
 
     // File path where orders are saved/loaded
     private static final String ORDERS_FILE = "data/orders.txt";
 
+    // Orders of each customer, keyed by user_id, in file order
+    private final Map<String, List<Order>> ordersByUser = new HashMap<>();
+
+    // Sales count per product; built on first use in on-disk storage modes
+    private BestSellerTracker bestSellers;
+
+    // Order positions sorted by parsed order_time; built with the sales counts
+    private OrderTimeIndex timeIndex;
+
+    // On-disk modes: table positions of each customer's orders, in file order;
+    // built with the time index and standing in for ordersByUser
+    private Map<String, OrderPositionList> positionsByUser;
+
+    // Set once an on-disk mode has built its sales counts and time index
+    private volatile boolean pagedIndexesReady;
+
+    // Reads share the read lock; changes to the orders and indexes take the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Base file plus append-only journal of order changes
+    private final RecordStore<Order> store;
+
+    // On-disk pager used instead of the in-memory list when started with
+    // -Dorders.storage=lazy (offset index) or =blocks (compressed blocks), null otherwise
+    private final PagedOrderStore pagedStore;
+
+    // Buffer of placed orders, drained in batches by a single writer thread
+    private final OrderIngestQueue ingest;
+
+    // Query planning: reading one order at a random position from an on-disk
+    // store costs about as much as scanning this many orders in sequence
+    private static final int RANDOM_READ_COST = 256;
+
+    // Orders read per call when walking a whole on-disk table
+    private static final int SCAN_CHUNK = 1024;
+
+    private static final DateTimeFormatter ORDER_TIME_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy_HH:mm:ss");
+
     /**
      * Private constructor to prevent external instantiation.
-     * Initializes the orders list and loads existing orders from file.
+     * Initializes the orders list and loads existing orders from file,
+     * or opens an on-disk pager when one is selected.
      */
     private OrderOperation() {
         orders = new ArrayList<>();
-        loadOrdersFromFile();
+        String storage = System.getProperty("orders.storage", "memory");
+        boolean paged = storage.equals("lazy") || storage.equals("blocks");
+        if (!storage.equals("blocks")) {
+            // Orders placed in blocks mode are only in orders.blk until exported
+            try {
+                BlockOrderStore.exportIfNewer(ORDERS_FILE);
+            } catch (IOException e) {
+                System.err.println("Error exporting order blocks: " + e.getMessage());
+            }
+        }
+        // On-disk pagers read or import orders.txt, so they always sit on the text backend
+        StorageBackend<Order> backend = paged
+                ? StorageBackend.open(ORDERS_FILE, RecordCodec.ORDERS, "text")
+                : StorageBackend.open(ORDERS_FILE, RecordCodec.ORDERS);
+        store = new RecordStore<>(backend, RecordCodec.ORDERS, lock.readLock(), () -> orders);
+        if (paged) {
+            // Fold journaled changes into the base file once, then page from disk
+            if (store.hasJournal()) {
+                loadOrdersFromFile();
+                store.compact();
+                orders.clear();
+                ordersByUser.clear();
+                bestSellers = null;
+                timeIndex = null;
+            }
+            pagedStore = storage.equals("lazy")
+                    ? new LazyOrderStore(ORDERS_FILE)
+                    : new BlockOrderStore(ORDERS_FILE);
+        } else {
+            pagedStore = null;
+            loadOrdersFromFile();
+        }
+        ingest = new OrderIngestQueue(this::writeBatch);
     }
 
     /**
@@ -37,131 +112,582 @@ public class OrderOperation {
 
      */
     public static OrderOperation getInstance() {
-        if (instance == null) {
-            instance = new OrderOperation();
-        }
-        return instance;
+        return Holder.INSTANCE;
     }
 
-    /**
-     * Loads orders from the specified orders file.
+    // Created on first use; class initialization makes this thread-safe
+    private static class Holder {
+        private static final OrderOperation INSTANCE = new OrderOperation();
+    }
 
+    /**
+     * Loads orders from the specified orders file,
+     * replaying any journaled changes on top.
      */
     private void loadOrdersFromFile() {
-        File file = new File(ORDERS_FILE);
-        File parentDir = file.getParentFile();
-
-        // Create directories if they do not exist
-        if (parentDir != null && !parentDir.exists()) {
-            boolean dirsCreated = parentDir.mkdirs();
-            if (!dirsCreated) {
-                System.err.println("Failed to create directories for: " + ORDERS_FILE);
+        orders.addAll(store.load());
+        bestSellers = new BestSellerTracker();
+        timeIndex = new OrderTimeIndex();
+        for (int position = 0; position < orders.size(); position++) {
+            Order order = orders.get(position);
+            ordersByUser.computeIfAbsent(order.getUserId(), id -> new ArrayList<>()).add(order);
+            bestSellers.recordSale(order.getProId());
+            timeIndex.append(order.getOrderTime(), position);
+        }
+        // History need not be in time order, so sort once rather than insert one by one
+        timeIndex.sort();
+    }
+
+    // Add an in-memory order at the given list position to the secondary indexes
+    private void indexOrder(Order order, int position) {
+        ordersByUser.computeIfAbsent(order.getUserId(), id -> new ArrayList<>()).add(order);
+        bestSellers.recordSale(order.getProId());
+        timeIndex.add(order.getOrderTime(), position);
+    }
+
+    /**
+     * On-disk modes keep no in-memory orders: on first use, count sales,
+     * index order times and collect each customer's positions in one pass
+     * over the stored orders, then keep all three up to date. Builds under the write lock, so call it before taking the
+     * read lock.
+     */
+    private void ensurePagedIndexes() {
+        if (pagedStore == null || pagedIndexesReady) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (pagedIndexesReady) {
                 return;
             }
+            bestSellers = new BestSellerTracker();
+            timeIndex = new OrderTimeIndex();
+            positionsByUser = new HashMap<>();
+            int total = pagedStore.size();
+            for (int from = 0; from < total; from += SCAN_CHUNK) {
+                List<Order> chunk = pagedStore.getRange(from, Math.min(from + SCAN_CHUNK, total));
+                for (int i = 0; i < chunk.size(); i++) {
+                    bestSellers.recordSale(chunk.get(i).getProId());
+                    timeIndex.append(chunk.get(i).getOrderTime(), from + i);
+                    positionsByUser.computeIfAbsent(chunk.get(i).getUserId(), id -> new OrderPositionList())
+                            .add(from + i);
+                }
+            }
+            timeIndex.sort();
+            pagedIndexesReady = true;
+        } finally {
+            lock.writeLock().unlock();
         }
+    }
 
-        // If file doesn't exist, no orders to load
-        if (!file.exists()) {
-            return;
+    // Order at a position of the order table
+    private Order orderAt(int position) {
+        if (pagedStore != null) {
+            List<Order> one = pagedStore.getRange(position, position + 1);
+            return one.isEmpty() ? null : one.get(0);
         }
+        return orders.get(position);
+    }
 
-        // Read file line by line, parse each order and add to list
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.startsWith("{") && line.endsWith("}")) {
-                    Order order = parseOrder(line);
-                    if (order != null) {
-                        orders.add(order);
-                    }
-                }
+    // Orders at positions [from, to) of an on-disk customer's list; each run of
+    // neighbouring positions is one range read
+    private List<Order> ordersAt(OrderPositionList positions, int from, int to) {
+        List<Order> result = new ArrayList<>();
+        int runStart = from;
+        for (int i = from + 1; i <= to; i++) {
+            if (i == to || positions.get(i) != positions.get(i - 1) + 1) {
+                result.addAll(pagedStore.getRange(positions.get(runStart), positions.get(i - 1) + 1));
+                runStart = i;
             }
-        } catch (IOException e) {
-            System.err.println("Error loading orders: " + e.getMessage());
+        }
+        return result;
+    }
+
+    // Wall-clock time as the epoch seconds used by the time index
+    private static long epochSeconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+
+    /**
+     * Retrieves a paginated list of all orders (for admin use).
+     */
+    public OrderListResult getAllOrders(int pageNumber) {
+        lock.readLock().lock();
+        try {
+            int pageSize = 10;
+            int totalOrders = pagedStore != null ? pagedStore.size() : orders.size();
+            int totalPages = (int) Math.ceil((double) totalOrders / pageSize);
+
+            // Return empty result if page number is invalid
+            if (pageNumber < 1 || pageNumber > totalPages) {
+                return new OrderListResult(new ArrayList<>(), 0, 0);
+            }
+
+            int fromIndex = (pageNumber - 1) * pageSize;
+            int toIndex = Math.min(fromIndex + pageSize, totalOrders);
+
+            return new OrderListResult(
+                    pagedStore != null ? pagedStore.getRange(fromIndex, toIndex)
+                        : new ArrayList<>(orders.subList(fromIndex, toIndex)),
+                    pageNumber,
+                    totalPages
+            );
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
     /**
-     * Parses a single order from a JSON-like string representation.
+     * Retrieves a page of all orders in file order, resuming at a cursor.
+     * Orders are only ever appended, so a cursor holds the position of the
+     * next order and each page is read directly from there.
      *
+     * @param cursor   cursor of the previous page, or null for the first page
+     * @param pageSize number of orders per page
+     */
+    public OrderListResult getAllOrders(String cursor, int pageSize) {
+        lock.readLock().lock();
+        try {
+            int from = cursor == null ? 0 : PageCursor.decodePosition("orders", cursor);
+            if (pageSize < 1 || from < 0) {
+                return new OrderListResult(new ArrayList<>(), null);
+            }
 
+            int totalOrders = pagedStore != null ? pagedStore.size() : orders.size();
+            int to = (int) Math.min((long) from + pageSize, totalOrders);
+            List<Order> page = from >= to ? new ArrayList<>()
+                    : pagedStore != null ? pagedStore.getRange(from, to) : new ArrayList<>(orders.subList(from, to));
+            String nextCursor = to < totalOrders ? PageCursor.encode("orders", String.valueOf(to)) : null;
+            return new OrderListResult(page, nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves a paginated list of one customer's orders.
+     * Served from the per-customer index, so the cost depends only on
+     * that customer's order count. On-disk storage modes index positions
+     * and read only the orders of the requested page.
      */
-    private Order parseOrder(String orderString) {
-        Map<String, String> map = new HashMap<>();
+    public OrderListResult getOrdersByUser(String userId, int pageNumber) {
+        ensurePagedIndexes();
+        lock.readLock().lock();
         try {
-            // Remove curly braces and split by key-value pairs
-            String content = orderString.substring(1, orderString.length() - 1);
-            String[] pairs = content.split("\",\\s*\"");
-
-            // Process each key-value pair
-            for (String pair : pairs) {
-                String[] keyValue = pair.split("\":\"?", 2);
-                if (keyValue.length == 2) {
-                    String key = keyValue[0].replace("\"", "").trim();
-                    String value = keyValue[1].replace("\"", "").trim();
-                    map.put(key, value);
-                }
+            int pageSize = 10;
+            int userOrderCount = pagedStore != null
+                    ? positionsByUser.getOrDefault(userId, new OrderPositionList()).size()
+                    : ordersByUser.getOrDefault(userId, Collections.emptyList()).size();
+            int totalPages = (int) Math.ceil((double) userOrderCount / pageSize);
+
+            // Return empty result if page number is invalid
+            if (pageNumber < 1 || pageNumber > totalPages) {
+                return new OrderListResult(new ArrayList<>(), 0, 0);
             }
 
-            // Create and return Order using extracted fields
-            return new Order(
-                    map.get("order_id"),
-                    map.get("user_id"),
-                    map.get("pro_id"),
-                    map.get("order_time")
+            int fromIndex = (pageNumber - 1) * pageSize;
+            int toIndex = Math.min(fromIndex + pageSize, userOrderCount);
+
+            return new OrderListResult(
+                    pagedStore != null ? ordersAt(positionsByUser.get(userId), fromIndex, toIndex)
+                        : new ArrayList<>(ordersByUser.get(userId).subList(fromIndex, toIndex)),
+                    pageNumber,
+                    totalPages
             );
-        } catch (Exception e) {
-            System.err.println("Error parsing order: " + e.getMessage());
-            return null;
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
+    // All orders of one customer, in file order; on disk, call ensurePagedIndexes first
+    private List<Order> userOrders(String userId) {
+        if (pagedStore == null) {
+            return ordersByUser.getOrDefault(userId, Collections.emptyList());
+        }
+        OrderPositionList positions = positionsByUser.get(userId);
+        return positions == null ? new ArrayList<>() : ordersAt(positions, 0, positions.size());
+    }
+
     /**
-     * Saves all current orders to the orders file.
+     * Retrieves the orders placed between two times (both inclusive), oldest first.
+     */
+    public List<Order> getOrdersBetween(LocalDateTime from, LocalDateTime to) {
+        ensurePagedIndexes();
+        lock.readLock().lock();
+        try {
+            List<Order> result = new ArrayList<>();
+            int end = timeIndex.upperBound(epochSeconds(to));
+            for (int i = timeIndex.lowerBound(epochSeconds(from)); i < end; i++) {
+                Order order = orderAt(timeIndex.positionAt(i));
+                if (order != null) {
+                    result.add(order);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
+    /**
+     * Find the orders matching every criterion of the query, sorted by order
+     * time and limited. The most selective index among the criteria drives
+     * the lookup and the other criteria are checked on its candidates only.
      */
-    private void saveOrdersToFile() {
-        File file = new File(ORDERS_FILE);
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            for (Order order : orders) {
-                writer.write(order.toString());
-                writer.newLine();
+    public List<Order> query(OrderQuery query) {
+        ensurePagedIndexes();
+        lock.readLock().lock();
+        try {
+            return runQuery(query, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Run the query and describe the plan chosen for it: the estimated
+     * candidates of each usable index, the one used, and the remaining steps.
+     */
+    public String explain(OrderQuery query) {
+        ensurePagedIndexes();
+        lock.readLock().lock();
+        try {
+            StringBuilder plan = new StringBuilder();
+            runQuery(query, plan);
+            return plan.toString();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Plan and run a query, describing the plan into explain when it is not null
+    private List<Order> runQuery(OrderQuery query, StringBuilder explain) {
+        String userId = query.getUserId();
+        boolean hasTime = query.hasTimeRange();
+        long from = query.getFrom() == null ? Long.MIN_VALUE + 1 : epochSeconds(query.getFrom());
+        long to = query.getTo() == null ? Long.MAX_VALUE : epochSeconds(query.getTo());
+        int low = hasTime ? timeIndex.lowerBound(from) : 0;
+        int high = hasTime ? timeIndex.upperBound(to) : timeIndex.size();
+
+        // Estimate every access path and keep the smallest
+        int total = pagedStore != null ? pagedStore.size() : orders.size();
+        String access = "full scan";
+        int estimate = total;
+        StringBuilder candidates = new StringBuilder("full scan=" + estimate);
+        if (userId != null) {
+            int userEstimate = pagedStore != null
+                    ? positionsByUser.getOrDefault(userId, new OrderPositionList()).size()
+                    : ordersByUser.getOrDefault(userId, Collections.emptyList()).size();
+            long cost = pagedStore == null ? userEstimate : (long) userEstimate * RANDOM_READ_COST;
+            candidates.append(", user index=").append(userEstimate);
+            if (cost < estimate) {
+                access = "user index";
+                estimate = userEstimate;
             }
-        } catch (IOException e) {
-            System.err.println("Error saving orders: " + e.getMessage());
         }
+        // Walking the time index returns rows already in order and stops at the
+        // limit unless users still need checking. Without a range it only
+        // stands in for a scan when every order's time parsed. On disk each
+        // order it visits is a separate read, so it must visit far fewer.
+        if (hasTime || timeIndex.size() == total) {
+            int timeRows = Math.max(0, high - low);
+            int visited = userId == null ? Math.min(timeRows, Math.max(0, query.getLimit())) : timeRows;
+            long cost = pagedStore == null ? visited : (long) visited * RANDOM_READ_COST;
+            candidates.append(", time index=").append(timeRows);
+            if (cost < estimate || (cost == estimate && access.equals("full scan"))) {
+                access = "time index";
+                estimate = visited;
+            }
+        }
+
+        List<Order> rows = new ArrayList<>();
+        switch (access) {
+            case "user index":
+                rows.addAll(userOrders(userId));
+                break;
+            case "time index":
+                // Newest first walks the range backwards; users are checked on the way
+                for (int i = 0; i < high - low && rows.size() < query.getLimit(); i++) {
+                    Order order = orderAt(timeIndex.positionAt(query.isNewestFirst() ? high - 1 - i : low + i));
+                    if (order != null && (userId == null || userId.equals(order.getUserId()))) {
+                        rows.add(order);
+                    }
+                }
+                break;
+            default:
+                if (pagedStore != null) {
+                    rows = scanPaged(userId, hasTime, from, to, query.getLimit(), query.isNewestFirst());
+                } else {
+                    rows.addAll(orders);
+                }
+        }
+        // Both the time index and the on-disk scan return rows filtered, in order and limited
+        boolean ordered = access.equals("time index") || pagedStore != null && access.equals("full scan");
+
+        // Check the criteria the access path did not already apply; each time is parsed once
+        boolean checkUser = userId != null && access.equals("full scan");
+        boolean checkTime = hasTime && !access.equals("time index");
+        List<String> filters = new ArrayList<>();
+        if (userId != null && !access.equals("user index")) filters.add("user");
+        if (checkTime) filters.add("time");
+
+        String sort = query.isNewestFirst() ? "time desc" : "time asc";
+        if (access.equals("time index")) {
+            sort += " (index order)";
+        } else if (ordered) {
+            sort += " (while scanning)";
+        } else {
+            Map<Order, Long> times = new IdentityHashMap<>();
+            for (Order order : rows) {
+                times.put(order, OrderTimeIndex.parse(order.getOrderTime()));
+            }
+            if (checkUser || checkTime) {
+                rows.removeIf(order -> (checkUser && !userId.equals(order.getUserId()))
+                        || (checkTime && (times.get(order) == OrderTimeIndex.INVALID
+                        || times.get(order) < from || times.get(order) > to)));
+            }
+            rows.sort(Comparator.comparingLong(times::get));
+            if (query.isNewestFirst()) {
+                Collections.reverse(rows);
+            }
+            if (rows.size() > query.getLimit()) {
+                rows = new ArrayList<>(rows.subList(0, Math.max(0, query.getLimit())));
+            }
+        }
+
+        if (explain != null) {
+            explain.append("candidates: ").append(candidates).append('\n')
+                    .append("access: ").append(access).append(" (").append(estimate).append(" rows)").append('\n')
+                    .append("filter: ").append(filters.isEmpty() ? "none" : String.join(", ", filters)).append('\n')
+                    .append("sort: ").append(sort).append('\n')
+                    .append("limit: ").append(query.getLimit() == Integer.MAX_VALUE ? "none" : query.getLimit()).append('\n')
+                    .append("rows: ").append(rows.size());
+        }
+        return rows;
     }
 
+    /**
+     * Full scan of the on-disk table in bounded chunks. Rows failing the user or
+     * time criteria are dropped as they are read, and a heap keeps only the
+     * first limit rows by (time, position), the order a stable sort by time
+     * gives, so memory stays at one chunk plus the result.
+     */
+    private List<Order> scanPaged(String userId, boolean hasTime, long from, long to, int limit,
+                                  boolean newestFirst) {
+        List<Order> rows = new ArrayList<>();
+        if (limit <= 0) {
+            return rows;
+        }
+        Comparator<long[]> oldestFirst = Comparator.<long[]>comparingLong(entry -> entry[0])
+                .thenComparingLong(entry -> entry[1]);
+        Comparator<long[]> wanted = newestFirst ? oldestFirst.reversed() : oldestFirst;
+        // Entries are {time, position}; the head is the kept row that would be dropped first
+        PriorityQueue<long[]> kept = new PriorityQueue<>(wanted.reversed());
+        Map<Integer, Order> keptOrders = new HashMap<>();
+
+        int total = pagedStore.size();
+        for (int start = 0; start < total; start += SCAN_CHUNK) {
+            List<Order> chunk = pagedStore.getRange(start, Math.min(start + SCAN_CHUNK, total));
+            for (int i = 0; i < chunk.size(); i++) {
+                Order order = chunk.get(i);
+                if (userId != null && !userId.equals(order.getUserId())) {
+                    continue;
+                }
+                long time = OrderTimeIndex.parse(order.getOrderTime());
+                if (hasTime && (time == OrderTimeIndex.INVALID || time < from || time > to)) {
+                    continue;
+                }
+                long[] entry = {time, start + i};
+                if (kept.size() < limit) {
+                    kept.add(entry);
+                } else if (wanted.compare(entry, kept.peek()) < 0) {
+                    keptOrders.remove((int) kept.poll()[1]);
+                    kept.add(entry);
+                } else {
+                    continue;
+                }
+                keptOrders.put(start + i, order);
+            }
+        }
+
+        List<long[]> entries = new ArrayList<>(kept);
+        entries.sort(wanted);
+        for (long[] entry : entries) {
+            rows.add(keptOrders.get((int) entry[1]));
+        }
+        return rows;
+    }
 
     /**
-     * Retrieves a paginated list of all orders (for admin use).
+     * Number of orders placed on each day from one date to another (both inclusive),
+     * keyed by dd-MM-yyyy.
      */
-    public OrderListResult getAllOrders(int pageNumber) {
-        int pageSize = 10;
-        int totalPages = (int) Math.ceil((double) orders.size() / pageSize);
+    public LinkedHashMap<String, Integer> getOrderCountsByDay(LocalDate from, LocalDate to) {
+        ensurePagedIndexes();
+        lock.readLock().lock();
+        try {
+            LinkedHashMap<String, Integer> counts = new LinkedHashMap<>();
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                counts.put(String.format("%02d-%02d-%04d", day.getDayOfMonth(), day.getMonthValue(), day.getYear()),
+                        timeIndex.count(epochSeconds(day.atStartOfDay()),
+                                epochSeconds(day.plusDays(1).atStartOfDay())));
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-        // Return empty result if page number is invalid
-        if (pageNumber < 1 || pageNumber > totalPages) {
-            return new OrderListResult(new ArrayList<>(), 0, 0);
+    /**
+     * Number of orders placed in each month from one month to another (both inclusive),
+     * keyed by MM-yyyy.
+     */
+    public LinkedHashMap<String, Integer> getOrderCountsByMonth(YearMonth from, YearMonth to) {
+        ensurePagedIndexes();
+        lock.readLock().lock();
+        try {
+            LinkedHashMap<String, Integer> counts = new LinkedHashMap<>();
+            for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                counts.put(String.format("%02d-%04d", month.getMonthValue(), month.getYear()),
+                        timeIndex.count(epochSeconds(month.atDay(1).atStartOfDay()),
+                                epochSeconds(month.plusMonths(1).atDay(1).atStartOfDay())));
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
         }
+    }
 
-        int fromIndex = (pageNumber - 1) * pageSize;
-        int toIndex = Math.min(fromIndex + pageSize, orders.size());
+    /**
+     * Returns the n best-selling product IDs with their sales counts, best first.
+     */
+    public LinkedHashMap<String, Integer> getTopBestSellers(int n) {
+        ensurePagedIndexes();
+        lock.readLock().lock();
+        try {
+            return bestSellers.top(n);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-        return new OrderListResult(
-                orders.subList(fromIndex, toIndex),
-                pageNumber,
-                totalPages
-        );
+    /**
+     * Place an order for a customer. The ids are checked against the
+     * in-memory users and products, then the order is queued for the batch
+     * writer and the call returns at once.
+     *
+     * @return a future completed with the order once it is stored; failed with
+     *         IllegalArgumentException for an unknown customer or product, or
+     *         RejectedExecutionException when too many orders are waiting
+     */
+    public CompletableFuture<Order> placeOrder(String userId, String proId) {
+        if (!(UserOperation.getInstance().getUserById(userId) instanceof Customer)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown customer: " + userId));
+        }
+        if (ProductOperation.getInstance().getProductById(proId) == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown product: " + proId));
+        }
+        String orderId = generateUniqueOrderId();
+        String orderTime = LocalDateTime.now().format(ORDER_TIME_FORMAT);
+        return ingest.submit(new Order(orderId, userId, proId, orderTime));
+    }
+
+    /**
+     * Generate a unique order ID from the time, node and a per-millisecond sequence.
+     */
+    public String generateUniqueOrderId() {
+        return IdGenerator.ORDERS.nextId();
+    }
+
+    /**
+     * Store one batch from the ingest queue under a single write lock:
+     * append it to the orders and every index, then journal it (in memory)
+     * or append it to the on-disk store.
+     */
+    private CompletableFuture<Void> writeBatch(List<Order> batch) {
+        lock.writeLock().lock();
+        try {
+            if (pagedStore != null) {
+                int position = pagedStore.size();
+                try {
+                    pagedStore.append(batch);
+                } catch (IOException e) {
+                    System.err.println("Error saving orders: " + e.getMessage());
+                    return CompletableFuture.failedFuture(e);
+                }
+                if (pagedIndexesReady) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        bestSellers.recordSale(batch.get(i).getProId());
+                        timeIndex.add(batch.get(i).getOrderTime(), position + i);
+                        positionsByUser.computeIfAbsent(batch.get(i).getUserId(), id -> new OrderPositionList())
+                                .add(position + i);
+                    }
+                }
+                return CompletableFuture.completedFuture(null);
+            }
+            // Journal entries commit in order, so the last one covers the batch
+            CompletableFuture<Void> durable = CompletableFuture.completedFuture(null);
+            for (Order order : batch) {
+                orders.add(order);
+                indexOrder(order, orders.size() - 1);
+                durable = store.put(order);
+            }
+            return durable;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes every order to data/orders.txt. Only blocks mode needs this,
+     * since its orders live in orders.blk alone; the other modes keep the
+     * text file (plus journal) current as they go.
+     *
+     * @return false if the export failed
+     */
+    public boolean exportOrdersToText() {
+        if (!(pagedStore instanceof BlockOrderStore)) {
+            return true;
+        }
+        lock.readLock().lock();
+        try {
+            ((BlockOrderStore) pagedStore).exportText();
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error exporting orders: " + e.getMessage());
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     /**
-     * Deletes all orders and clears the orders file.
+     * Deletes all orders and journals the empty order table.
      */
-    public void deleteAllOrders() {
-        orders.clear();
-        saveOrdersToFile();
+    public CompletableFuture<Void> deleteAllOrders() {
+        lock.writeLock().lock();
+        try {
+            if (pagedStore != null) {
+                try {
+                    pagedStore.clear();
+                    bestSellers = new BestSellerTracker();
+                    timeIndex = new OrderTimeIndex();
+                    positionsByUser = new HashMap<>();
+                    return CompletableFuture.completedFuture(null);
+                } catch (IOException e) {
+                    System.err.println("Error deleting orders: " + e.getMessage());
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+            orders.clear();
+            ordersByUser.clear();
+            bestSellers.clear();
+            timeIndex.clear();
+            return store.replaceAll(orders);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     // Placeholder methods for generating test data and consumption figures
@@ -173,16 +699,68 @@ public class OrderOperation {
 
 
     public void generateSingleCustomerConsumptionFigure(String customerId) {
-        // Implementation would use a charting library
+        TreeMap<YearMonth, Double> spending = new TreeMap<>();
+        ProductOperation productOp = ProductOperation.getInstance();
+        ensurePagedIndexes();
+        lock.readLock().lock();
+        try {
+            for (Order order : userOrders(customerId)) {
+                long time = OrderTimeIndex.parse(order.getOrderTime());
+                Product product = productOp.getProductById(order.getProId());
+                if (time != OrderTimeIndex.INVALID && product != null) {
+                    LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(time, 86400L));
+                    spending.merge(YearMonth.from(day), product.getProCurrentPrice(), Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        printConsumption("Monthly Consumption of " + customerId, spending);
     }
 
 
     public void generateAllCustomersConsumptionFigure() {
-        // Implementation would use a charting library
+        TreeMap<YearMonth, Double> spending = new TreeMap<>();
+        ProductOperation productOp = ProductOperation.getInstance();
+        ensurePagedIndexes();
+        lock.readLock().lock();
+        try {
+            if (timeIndex.size() > 0) {
+                // Twelve months up to the latest order, each month one index range
+                LocalDate latest = LocalDate.ofEpochDay(
+                        Math.floorDiv(timeIndex.timeAt(timeIndex.size() - 1), 86400L));
+                YearMonth last = YearMonth.from(latest);
+                for (YearMonth month = last.minusMonths(11); !month.isAfter(last); month = month.plusMonths(1)) {
+                    int end = timeIndex.lowerBound(epochSeconds(month.plusMonths(1).atDay(1).atStartOfDay()));
+                    double total = 0;
+                    for (int i = timeIndex.lowerBound(epochSeconds(month.atDay(1).atStartOfDay())); i < end; i++) {
+                        Order order = orderAt(timeIndex.positionAt(i));
+                        Product product = order == null ? null : productOp.getProductById(order.getProId());
+                        if (product != null) {
+                            total += product.getProCurrentPrice();
+                        }
+                    }
+                    spending.put(month, total);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        printConsumption("Monthly Consumption of All Customers", spending);
+    }
+
+    // One bar per month, labelled MM-yyyy
+    private static void printConsumption(String title, Map<YearMonth, Double> spending) {
+        Map<String, Double> bars = new LinkedHashMap<>();
+        for (Map.Entry<YearMonth, Double> entry : spending.entrySet()) {
+            bars.put(String.format("%02d-%04d", entry.getKey().getMonthValue(), entry.getKey().getYear()),
+                    entry.getValue());
+        }
+        TextChart.print(title, bars, "%.2f");
     }
 
 
     public void generateAllTop10BestSellersFigure() {
-        // Implementation would use a charting library
+        TextChart.print("Top 10 Best Sellers", getTopBestSellers(10), "%d");
     }
 }
@@ -0,0 +1,28 @@
+package operation;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of order table positions, in the order they were added.
+ * An on-disk mode keeps one per customer instead of the customer's Order
+ * objects, so the index costs four bytes per order.
+ */
+final class OrderPositionList {
+    private int[] positions = new int[4];
+    private int size;
+
+    void add(int position) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+        }
+        positions[size++] = position;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return positions[index];
+    }
+}
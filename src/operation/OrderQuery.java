@@ -0,0 +1,56 @@
+package operation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Criteria for {@link OrderOperation#query}: every criterion that is set
+ * must match (customer AND time range), followed by a sort on order time
+ * and an optional limit. Setters return the query so criteria can be chained.
+ */
+public class OrderQuery {
+
+    // user_id of the customer, or null for any customer
+    private String userId;
+
+    // Inclusive order-time range, null ends are open
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    // Newest orders first instead of oldest first
+    private boolean newestFirst;
+
+    // Maximum number of results
+    private int limit = Integer.MAX_VALUE;
+
+    public OrderQuery user(String userId) {
+        this.userId = userId;
+        return this;
+    }
+
+    public OrderQuery between(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    public OrderQuery newestFirst(boolean newestFirst) {
+        this.newestFirst = newestFirst;
+        return this;
+    }
+
+    public OrderQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    String getUserId() { return userId; }
+    LocalDateTime getFrom() { return from; }
+    LocalDateTime getTo() { return to; }
+    boolean isNewestFirst() { return newestFirst; }
+    int getLimit() { return limit; }
+
+    // True if either end of the time range was set
+    boolean hasTimeRange() {
+        return from != null || to != null;
+    }
+}
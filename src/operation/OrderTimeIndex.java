@@ -0,0 +1,207 @@
+package operation;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Order positions sorted by order time. Timestamps are parsed once, when an
+ * order is indexed, into epoch seconds (wall-clock time, no zone), so a time
+ * range or a day/month bucket is two binary searches instead of parsing every
+ * order_time string on every query.
+ *
+ * Positions refer to the order table (the in-memory list, or the record
+ * number in an on-disk pager), which only grows until it is cleared.
+ */
+final class OrderTimeIndex {
+    static final long INVALID = Long.MIN_VALUE;
+
+    private long[] times = new long[16];
+    private int[] positions = new int[16];
+    private int size;
+    private int sortedSize;  // Entries before this are sorted; the rest were appended in bulk
+
+    /**
+     * Parse a dd-MM-yyyy_HH:mm:ss timestamp into epoch seconds.
+     *
+     * @return the time, or INVALID if the string is not in that format
+     */
+    static long parse(String orderTime) {
+        if (orderTime == null || orderTime.length() != 19 || orderTime.charAt(10) != '_') {
+            return INVALID;
+        }
+        try {
+            int day = digits(orderTime, 0, 2);
+            int month = digits(orderTime, 3, 5);
+            int year = digits(orderTime, 6, 10);
+            int hour = digits(orderTime, 11, 13);
+            int minute = digits(orderTime, 14, 16);
+            int second = digits(orderTime, 17, 19);
+            if (year < 0 || hour < 0 || hour > 23 || minute < 0 || minute > 59
+                    || second < 0 || second > 59) {
+                return INVALID;
+            }
+            // Day and month are range-checked here
+            return LocalDate.of(year, month, day).toEpochDay() * 86400L
+                    + hour * 3600L + minute * 60L + second;
+        } catch (DateTimeException e) {
+            return INVALID;
+        }
+    }
+
+    // Fixed-width decimal field, or -1 if it contains a non-digit
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Index the order at the given position.
+     *
+     * @return false if its time could not be parsed
+     */
+    boolean add(String orderTime, int position) {
+        long time = parse(orderTime);
+        if (time == INVALID) {
+            return false;
+        }
+        grow();
+        // Orders mostly arrive in time order, so this is usually an append
+        int at = upperBound(time);
+        System.arraycopy(times, at, times, at + 1, size - at);
+        System.arraycopy(positions, at, positions, at + 1, size - at);
+        times[at] = time;
+        positions[at] = position;
+        size++;
+        sortedSize = size;
+        return true;
+    }
+
+    /**
+     * Index an order without keeping the index sorted, for bulk loads that
+     * would otherwise shift the arrays once per out-of-order order.
+     * Call {@link #sort()} after the last one, before any lookup or add.
+     *
+     * @return false if its time could not be parsed
+     */
+    boolean append(String orderTime, int position) {
+        long time = parse(orderTime);
+        if (time == INVALID) {
+            return false;
+        }
+        grow();
+        times[size] = time;
+        positions[size] = position;
+        size++;
+        return true;
+    }
+
+    /**
+     * Sort the entries appended since the index was last sorted and merge
+     * them in, keeping equal times in the order they were indexed.
+     */
+    void sort() {
+        if (sortedSize == size) {
+            return;
+        }
+        long[] timeBuffer = new long[size];
+        int[] positionBuffer = new int[size];
+        // Bottom-up merge sort of the appended tail, then one merge with the sorted head
+        for (int width = 1; width < size - sortedSize; width *= 2) {
+            for (int from = sortedSize; from < size - width; from += 2 * width) {
+                merge(from, from + width, Math.min(from + 2 * width, size), timeBuffer, positionBuffer);
+            }
+        }
+        merge(0, sortedSize, size, timeBuffer, positionBuffer);
+        sortedSize = size;
+    }
+
+    // Merge the sorted runs [from, middle) and [middle, to), left run first on ties
+    private void merge(int from, int middle, int to, long[] timeBuffer, int[] positionBuffer) {
+        if (from == middle || middle == to || times[middle - 1] <= times[middle]) {
+            return;
+        }
+        System.arraycopy(times, from, timeBuffer, from, middle - from);
+        System.arraycopy(positions, from, positionBuffer, from, middle - from);
+        int left = from, right = middle, out = from;
+        while (left < middle && right < to) {
+            if (times[right] < timeBuffer[left]) {
+                times[out] = times[right];
+                positions[out++] = positions[right++];
+            } else {
+                times[out] = timeBuffer[left];
+                positions[out++] = positionBuffer[left++];
+            }
+        }
+        while (left < middle) {
+            times[out] = timeBuffer[left];
+            positions[out++] = positionBuffer[left++];
+        }
+    }
+
+    private void grow() {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            positions = Arrays.copyOf(positions, size * 2);
+        }
+    }
+
+    void clear() {
+        times = new long[16];
+        positions = new int[16];
+        size = 0;
+        sortedSize = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // First index whose time is >= value
+    int lowerBound(long value) {
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // First index whose time is > value
+    int upperBound(long value) {
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Number of orders with from <= time < to
+    int count(long from, long to) {
+        return Math.max(0, lowerBound(to) - lowerBound(from));
+    }
+
+    int positionAt(int index) {
+        return positions[index];
+    }
+
+    long timeAt(int index) {
+        return times[index];
+    }
+}
@@ -0,0 +1,46 @@
+package operation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque cursors for keyset pagination. A cursor names the list it belongs to
+ * and the key to resume after, encoded so callers pass it back unchanged
+ * rather than building one themselves.
+ */
+final class PageCursor {
+
+    private PageCursor() {
+    }
+
+    static String encode(String list, String key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((list + ":" + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the key inside the cursor, or null if it is not a cursor of this list
+     */
+    static String decode(String list, String cursor) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return text.startsWith(list + ":") ? text.substring(list.length() + 1) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Decode a cursor holding a list position.
+     *
+     * @return the position, or -1 if the cursor is not valid for this list
+     */
+    static int decodePosition(String list, String cursor) {
+        String key = decode(list, cursor);
+        try {
+            return key == null ? -1 : Math.max(-1, Integer.parseInt(key));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package operation;
+
+import model.Order;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Order storage that serves pages straight from disk instead of keeping
+ * every order in memory.
+ */
+interface PagedOrderStore {
+
+    // Number of stored orders
+    int size();
+
+    /**
+     * Read the orders at positions [from, to) in file order.
+     */
+    List<Order> getRange(int from, int to);
+
+    /**
+     * Append orders after the last stored one and make them durable.
+     */
+    void append(List<Order> orders) throws IOException;
+
+    /**
+     * Delete every stored order.
+     */
+    void clear() throws IOException;
+
+    /**
+     * Append orders to a text data file as one write and fsync, starting a
+     * new line first if the file does not end with one.
+     */
+    static void appendLines(String file, List<Order> orders) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Order order : orders) {
+            lines.append(RecordCodec.ORDERS.format(order)).append('\n');
+        }
+        try (RandomAccessFile data = new RandomAccessFile(file, "rw")) {
+            long length = data.length();
+            if (length > 0) {
+                data.seek(length - 1);
+                if (data.read() != '\n') {
+                    lines.insert(0, '\n');
+                }
+            }
+            data.seek(length);
+            data.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+            data.getChannel().force(true);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package operation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+
+/**
+ * Loads a line-per-record data file by memory-mapping it, cutting it into
+ * chunks at newline boundaries and parsing the chunks in parallel on the
+ * common fork-join pool. Results are merged back in file order.
+ */
+final class ParallelRecordLoader {
+    // Chunks never get smaller than this, so small files load on one thread
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    // Upper bound so each chunk fits in a single mapping
+    private static final long MAX_CHUNK_SIZE = 1L << 28;
+
+    private ParallelRecordLoader() {
+    }
+
+    /**
+     * Parse every line of the file.
+     *
+     * @param file      file to load
+     * @param parseLine turns one line into a record, or null to skip it;
+     *                  each worker passes its own parser
+     * @return records in the order they appear in the file
+     */
+    static <T> List<T> load(File file, BiFunction<RecordParser, String, T> parseLine) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return new ArrayList<>();
+            }
+
+            int workers = ForkJoinPool.commonPool().getParallelism();
+            long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (workers * 4L)));
+            List<Long> bounds = chunkBounds(channel, size, chunkSize);
+
+            return ForkJoinPool.commonPool().invoke(
+                    new ChunkTask<>(channel, bounds, 0, bounds.size() - 1, parseLine));
+        }
+    }
+
+    /**
+     * Split the file into chunks of roughly chunkSize bytes, moving each cut
+     * forward to just after the next newline.
+     */
+    private static List<Long> chunkBounds(FileChannel channel, long size, long chunkSize) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long position = chunkSize;
+
+        while (position < size) {
+            long cut = -1;
+            while (cut < 0 && position < size) {
+                probe.clear();
+                int read = channel.read(probe, position);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        cut = position + i + 1;
+                        break;
+                    }
+                }
+                if (cut < 0) {
+                    position += read;
+                }
+            }
+            if (cut < 0 || cut >= size) {
+                break;
+            }
+            bounds.add(cut);
+            position = cut + chunkSize;
+        }
+
+        bounds.add(size);
+        return bounds;
+    }
+
+    /**
+     * Parses chunks [from, to) by splitting the range in half until
+     * a single chunk is left.
+     */
+    // Serializable only through ForkJoinTask; tasks never leave the pool
+    @SuppressWarnings("serial")
+    private static final class ChunkTask<T> extends RecursiveTask<List<T>> {
+        private final FileChannel channel;
+        private final List<Long> bounds;
+        private final int from;
+        private final int to;
+        private final BiFunction<RecordParser, String, T> parseLine;
+
+        ChunkTask(FileChannel channel, List<Long> bounds, int from, int to,
+                  BiFunction<RecordParser, String, T> parseLine) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.parseLine = parseLine;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (to - from == 1) {
+                return parseChunk(bounds.get(from), bounds.get(to));
+            }
+            int middle = (from + to) >>> 1;
+            ChunkTask<T> left = new ChunkTask<>(channel, bounds, from, middle, parseLine);
+            ChunkTask<T> right = new ChunkTask<>(channel, bounds, middle, to, parseLine);
+            left.fork();
+            List<T> rightRecords = right.compute();
+            List<T> records = left.join();
+
+            // Left half comes first in the file
+            records.addAll(rightRecords);
+            return records;
+        }
+
+        private List<T> parseChunk(long start, long end) {
+            List<T> records = new ArrayList<>();
+            RecordParser parser = new RecordParser();
+            MappedByteBuffer buffer;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to map " + start + ".." + end, e);
+            }
+
+            byte[] lineBytes = new byte[256];
+            int length = buffer.limit();
+            int lineStart = 0;
+            for (int i = 0; i <= length; i++) {
+                if (i < length && buffer.get(i) != '\n') {
+                    continue;
+                }
+                int lineLength = i - lineStart;
+                if (lineLength > 0) {
+                    if (lineLength > lineBytes.length) {
+                        lineBytes = new byte[Math.max(lineLength, lineBytes.length * 2)];
+                    }
+                    buffer.get(lineStart, lineBytes, 0, lineLength);
+                    T record = parseLine.apply(parser,
+                            new String(lineBytes, 0, lineLength, StandardCharsets.UTF_8));
+                    if (record != null) {
+                        records.add(record);
+                    }
+                }
+                lineStart = i + 1;
+            }
+            return records;
+        }
+    }
+}
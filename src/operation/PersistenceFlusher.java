@@ -0,0 +1,102 @@
+package operation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Background thread that group-commits journal writes.
+ * Stores mark themselves dirty on every mutation; the flusher waits for a
+ * short window (or until enough mutations pile up) and then writes each
+ * dirty store once, so a burst of changes costs one write and one fsync.
+ *
+ * The window and batch size can be set with the system properties
+ * "flush.window.ms" (default 5) and "flush.batch.size" (default 256).
+ */
+final class PersistenceFlusher implements Runnable {
+    private static PersistenceFlusher instance;
+
+    private final long windowMillis;
+    private final int batchSize;
+
+    // Stores with queued entries, in the order they became dirty
+    private final Set<RecordStore<?>> dirty = new LinkedHashSet<>();
+    private int mutations;
+
+    private PersistenceFlusher() {
+        windowMillis = Long.getLong("flush.window.ms", 5);
+        batchSize = Integer.getInteger("flush.batch.size", 256);
+
+        Thread thread = new Thread(this, "persistence-flusher");
+        thread.setDaemon(true);
+        thread.start();
+
+        // Daemon thread dies with the JVM, so drain what is left on exit
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushAll, "persistence-flusher-shutdown"));
+    }
+
+    static synchronized PersistenceFlusher getInstance() {
+        if (instance == null) {
+            instance = new PersistenceFlusher();
+        }
+        return instance;
+    }
+
+    /**
+     * Schedule the store for the next group commit.
+     */
+    synchronized void markDirty(RecordStore<?> store) {
+        boolean wasIdle = dirty.isEmpty();
+        dirty.add(store);
+        mutations++;
+        if (wasIdle || mutations >= batchSize) {
+            notifyAll();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                for (RecordStore<?> store : nextBatch()) {
+                    store.flushPending();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Error flushing data: " + e.getMessage());
+            }
+        }
+    }
+
+    // Wait for the first mutation, then for the window to close or the batch to fill
+    private synchronized List<RecordStore<?>> nextBatch() throws InterruptedException {
+        while (dirty.isEmpty()) {
+            wait();
+        }
+        long deadline = System.currentTimeMillis() + windowMillis;
+        long remaining = windowMillis;
+        while (mutations < batchSize && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return takeDirty();
+    }
+
+    private synchronized List<RecordStore<?>> takeDirty() {
+        List<RecordStore<?>> batch = new ArrayList<>(dirty);
+        dirty.clear();
+        mutations = 0;
+        return batch;
+    }
+
+    /**
+     * Flush every dirty store right away.
+     */
+    void flushAll() {
+        for (RecordStore<?> store : takeDirty()) {
+            store.flushPending();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package operation;
+
+import model.Product;
+
+import java.util.*;
+
+/**
+ * Immutable view of the product catalog together with all of its indexes.
+ * Writers build a new catalog and publish it in one reference swap; readers
+ * take the current catalog once and use it for the whole request, so they
+ * never lock and never see a half-applied change.
+ *
+ * A single-product change derives the next catalog from the current one:
+ * the indexes are copied (sharing everything the change does not touch) and
+ * updated incrementally, so nothing is re-tokenized or re-sorted.
+ */
+final class ProductCatalog {
+    static final ProductCatalog EMPTY = new ProductCatalog(Collections.emptyList());
+
+    final List<Product> products;                 // Catalog order, unmodifiable
+    final TreeMap<String, Product> productsById;  // Sorted by pro_id for keyset pages
+    final ProductTokenIndex tokenIndex;           // Name tokens for keyword search
+    final ProductTrigramIndex trigramIndex;       // Name trigrams for fuzzy search
+    final ProductCategoryIndex categoryIndex;     // Products per category
+
+    // Sorted indexes for range filters and ordered paging
+    final ProductSortedIndex priceIndex;
+    final ProductSortedIndex discountIndex;
+    final ProductSortedIndex likesIndex;
+
+    /**
+     * Index the given products; the list is copied, so callers may reuse it.
+     */
+    ProductCatalog(List<Product> products) {
+        this.products = Collections.unmodifiableList(new ArrayList<>(products));
+        productsById = new TreeMap<>();
+        tokenIndex = new ProductTokenIndex();
+        trigramIndex = new ProductTrigramIndex();
+        categoryIndex = new ProductCategoryIndex();
+        priceIndex = new ProductSortedIndex(Product::getProCurrentPrice, this.products);
+        discountIndex = new ProductSortedIndex(Product::getProDiscount, this.products);
+        likesIndex = new ProductSortedIndex(Product::getProLikesCount, this.products);
+        for (Product product : this.products) {
+            productsById.put(product.getProId(), product);
+            tokenIndex.add(product);
+            trigramIndex.add(product);
+            categoryIndex.add(product);
+        }
+    }
+
+    // Copy of a catalog with one product removed and/or one added (either may be null)
+    private ProductCatalog(ProductCatalog previous, Product removed, Product added) {
+        List<Product> products = new ArrayList<>(previous.products);
+        productsById = new TreeMap<>(previous.productsById);
+        tokenIndex = new ProductTokenIndex(previous.tokenIndex);
+        trigramIndex = new ProductTrigramIndex(previous.trigramIndex);
+        categoryIndex = new ProductCategoryIndex(previous.categoryIndex);
+        priceIndex = new ProductSortedIndex(previous.priceIndex);
+        discountIndex = new ProductSortedIndex(previous.discountIndex);
+        likesIndex = new ProductSortedIndex(previous.likesIndex);
+        if (removed != null) {
+            for (int i = 0; i < products.size(); i++) {
+                if (products.get(i) == removed) {
+                    products.remove(i);
+                    break;
+                }
+            }
+            productsById.remove(removed.getProId());
+            tokenIndex.remove(removed);
+            trigramIndex.remove(removed);
+            categoryIndex.remove(removed);
+            priceIndex.remove(removed);
+            discountIndex.remove(removed);
+            likesIndex.remove(removed);
+        }
+        if (added != null) {
+            products.add(added);
+            productsById.put(added.getProId(), added);
+            tokenIndex.add(added);
+            trigramIndex.add(added);
+            categoryIndex.add(added);
+            priceIndex.add(added);
+            discountIndex.add(added);
+            likesIndex.add(added);
+        }
+        this.products = Collections.unmodifiableList(products);
+    }
+
+    /**
+     * Catalog with a product added at the end, replacing any product with the same ID.
+     */
+    ProductCatalog with(Product product) {
+        return new ProductCatalog(this, productsById.get(product.getProId()), product);
+    }
+
+    /**
+     * Catalog without the product with the given ID.
+     */
+    ProductCatalog without(String proId) {
+        return new ProductCatalog(this, productsById.get(proId), null);
+    }
+
+    // Sorted index for a field name, or null if the field is not indexed
+    ProductSortedIndex sortedIndex(String field) {
+        switch (field.toLowerCase()) {
+            case "price":
+                return priceIndex;
+            case "discount":
+                return discountIndex;
+            case "likes":
+                return likesIndex;
+            default:
+                return null;
+        }
+    }
+}
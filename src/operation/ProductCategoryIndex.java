@@ -0,0 +1,83 @@
+package operation;
+
+import model.Product;
+
+import java.util.*;
+
+/**
+ * Products grouped by category in catalog order, so category pages and the
+ * category distribution are read straight from the groups instead of
+ * filtering the whole catalog. Counts are the group sizes.
+ * A copy shares the groups of the original until it changes one of them.
+ */
+final class ProductCategoryIndex {
+    // Categories in name order; each list keeps catalog order
+    private final TreeMap<String, List<Product>> byCategory;
+
+    // Groups created by this index; any other group is shared and read-only
+    private final Set<List<Product>> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    ProductCategoryIndex() {
+        byCategory = new TreeMap<>();
+    }
+
+    // Copy that shares the groups of the source until it changes them
+    ProductCategoryIndex(ProductCategoryIndex source) {
+        byCategory = new TreeMap<>(source.byCategory);
+    }
+
+    void add(Product product) {
+        writableGroup(categoryOf(product)).add(product);
+    }
+
+    void remove(Product product) {
+        String category = categoryOf(product);
+        if (!byCategory.containsKey(category)) {
+            return;
+        }
+        List<Product> group = writableGroup(category);
+        for (int i = 0; i < group.size(); i++) {
+            if (group.get(i) == product) {
+                group.remove(i);
+                break;
+            }
+        }
+        if (group.isEmpty()) {
+            byCategory.remove(category);
+        }
+    }
+
+    // Group of a category that this index may change, created or copied as needed
+    private List<Product> writableGroup(String category) {
+        List<Product> group = byCategory.get(category);
+        if (group == null || !owned.contains(group)) {
+            group = group == null ? new ArrayList<>() : new ArrayList<>(group);
+            byCategory.put(category, group);
+            owned.add(group);
+        }
+        return group;
+    }
+
+    /**
+     * Products of one category, in catalog order (read-only view).
+     */
+    List<Product> products(String category) {
+        List<Product> group = byCategory.get(category);
+        return group == null ? Collections.emptyList() : Collections.unmodifiableList(group);
+    }
+
+    /**
+     * Number of products per category, in category name order.
+     */
+    Map<String, Integer> counts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Product>> entry : byCategory.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().size());
+        }
+        return counts;
+    }
+
+    private static String categoryOf(Product product) {
+        return product.getProCategory() == null ? "" : product.getProCategory();
+    }
+}
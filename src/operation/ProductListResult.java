@@ -18,6 +18,9 @@ public class ProductListResult {
     // The total number of pages available
     private int totalPages;
 
+    // Cursor of the following page for keyset pagination, null on the last page
+    private String nextCursor;
+
     /**
      * Constructor to initialize the paginated product list result.
      *
@@ -31,6 +34,17 @@ public class ProductListResult {
         this.totalPages = totalPages;
     }
 
+    /**
+     * Constructor for a keyset page, which carries a cursor instead of page numbers.
+     *
+     * @param products   List of products for this page
+     * @param nextCursor Cursor of the following page, or null if this is the last
+     */
+    public ProductListResult(List<Product> products, String nextCursor) {
+        this(products, 0, 0);
+        this.nextCursor = nextCursor;
+    }
+
     // Getter for the list of products
     public List<Product> getProducts() { return products; }
 
@@ -39,4 +53,7 @@ public class ProductListResult {
 
     // Getter for the total number of pages
     public int getTotalPages() { return totalPages; }
+
+    // Getter for the cursor of the following page (null on the last page)
+    public String getNextCursor() { return nextCursor; }
 }
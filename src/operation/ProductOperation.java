@@ -2,24 +2,34 @@ package operation;
 
 import model.Product;
 
-import java.io.*;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Singleton class to manage product operations such as loading, saving,
  * searching, paginating, adding, and deleting products.
+ * Safe for concurrent use: the catalog and its indexes are an immutable
+ * snapshot that readers use without locking; writers build and publish a
+ * new snapshot one at a time.
  */
 public class ProductOperation {
-    private static ProductOperation instance;  // Singleton instance
-    private List<Product> products;            // In-memory list of products
     private static final String PRODUCTS_FILE = "data/products.txt";  // File to persist products
+    private final RecordStore<Product> store;                         // Base file plus change journal
+
+    // Current catalog snapshot, replaced as a whole on every change
+    private final AtomicReference<ProductCatalog> catalog = new AtomicReference<>(ProductCatalog.EMPTY);
+
+    // Serializes writers so each change builds on the latest snapshot
+    private final ReentrantLock writeLock = new ReentrantLock();
 
     /**
-     * Private constructor to initialize the products list and load from file.
+     * Private constructor to load the catalog from file.
      */
     private ProductOperation() {
-        products = new ArrayList<>();
+        store = new RecordStore<>(StorageBackend.open(PRODUCTS_FILE, RecordCodec.PRODUCTS),
+                RecordCodec.PRODUCTS, writeLock, () -> catalog.get().products);
         loadProductsFromFile();
     }
 
@@ -29,145 +39,342 @@ public class ProductOperation {
      * @return single instance of ProductOperation
      */
     public static ProductOperation getInstance() {
-        if (instance == null) {
-            instance = new ProductOperation();
-        }
-        return instance;
+        return Holder.INSTANCE;
+    }
+
+    // Created on first use; class initialization makes this thread-safe
+    private static class Holder {
+        private static final ProductOperation INSTANCE = new ProductOperation();
     }
 
     /**
-     * Load products from the file into the in-memory list.
-     * Creates parent directories if they don't exist.
+     * Load products from the file into the catalog,
+     * replaying any journaled changes on top.
      */
     private void loadProductsFromFile() {
-        File file = new File(PRODUCTS_FILE);
-        File parentDir = file.getParentFile();
+        catalog.set(new ProductCatalog(store.load()));
+    }
+
+    /**
+     * Get  list of products.
+     */
+    public ProductListResult getProductList(int pageNumber) {
+        ProductCatalog current = catalog.get();
+        int pageSize = 10;  // Number of products per page
+        int totalPages = (int) Math.ceil((double) current.products.size() / pageSize);
 
-        if (parentDir != null && !parentDir.exists()) {
-            parentDir.mkdirs();
+        if (pageNumber < 1 || pageNumber > totalPages) {
+            return new ProductListResult(new ArrayList<>(), 0, 0);
         }
 
-        if (!file.exists()) {
-            return;  // No file yet, so nothing to load
+        int fromIndex = (pageNumber - 1) * pageSize;
+        int toIndex = Math.min(fromIndex + pageSize, current.products.size());
+
+        // The snapshot never changes, so a view of it stays consistent
+        return new ProductListResult(
+                current.products.subList(fromIndex, toIndex),
+                pageNumber,
+                totalPages
+        );
+    }
+
+    /**
+     * Get a page of products in product ID order, resuming after a cursor.
+     * Pages do not shift when products are added or deleted between calls,
+     * and each page is one tree seek however deep it is.
+     *
+     * @param cursor   cursor of the previous page, or null for the first page
+     * @param pageSize number of products per page
+     */
+    public ProductListResult getProductList(String cursor, int pageSize) {
+        ProductCatalog current = catalog.get();
+        String after = cursor == null ? null : PageCursor.decode("products", cursor);
+        if (pageSize < 1 || (cursor != null && after == null)) {
+            return new ProductListResult(new ArrayList<>(), null);
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            // Read each line and parse it into a Product object
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (!line.isEmpty()) {
-                    Product product = parseProduct(line);
-                    if (product != null) {
-                        products.add(product);
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading products: " + e.getMessage());
+        Iterator<Product> it = (after == null ? current.productsById : current.productsById.tailMap(after, false))
+                .values().iterator();
+        List<Product> page = new ArrayList<>(Math.min(pageSize, current.productsById.size()));
+        while (it.hasNext() && page.size() < pageSize) {
+            page.add(it.next());
         }
+        String nextCursor = it.hasNext()
+                ? PageCursor.encode("products", page.get(page.size() - 1).getProId())
+                : null;
+        return new ProductListResult(page, nextCursor);
     }
 
     /**
-     * Parse a single line from the file into a Product object.
-     * The line is expected to be a JSON-like string representing a product.
+     * Find a product by its ID.
      *
-     * @param line input string line
-     * @return Product object or null if parsing fails
+     * @return the product, or null if there is none
      */
-    private Product parseProduct(String line) {
-        try {
-            // Remove surrounding braces if present
-            line = line.trim();
-            if (line.startsWith("{") && line.endsWith("}")) {
-                line = line.substring(1, line.length() - 1);
-            }
+    public Product getProductById(String proId) {
+        return catalog.get().productsById.get(proId);
+    }
 
-            Map<String, String> productMap = new HashMap<>();
-            // Split by commas that are not inside quotes to separate key-value pairs
-            String[] pairs = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-
-            // Parse each key-value pair and populate the map
-            for (String pair : pairs) {
-                String[] kv = pair.split(":", 2);
-                if (kv.length == 2) {
-                    String key = kv[0].replaceAll("\"", "").trim();
-                    String value = kv[1].replaceAll("\"", "").trim();
-                    productMap.put(key, value);
-                }
-            }
+    /**
+     * Search products by keywords in their name.
+     * Every word of the keyword must start a word of the product name.
+     */
+    public List<Product> getProductListByKeyword(String keyword) {
+        return catalog.get().tokenIndex.search(keyword);
+    }
 
-            // Create a Product object using the parsed values
-            return new Product(
-                    productMap.get("pro_id"),
-                    productMap.get("pro_model"),
-                    productMap.get("pro_category"),
-                    productMap.get("pro_name"),
-                    Double.parseDouble(productMap.get("pro_current_price")),
-                    Double.parseDouble(productMap.get("pro_raw_price")),
-                    Double.parseDouble(productMap.get("pro_discount")),
-                    Integer.parseInt(productMap.get("pro_likes_count"))
-            );
-        } catch (Exception e) {
-            System.err.println("Error parsing product line: " + line);
-            System.err.println("Exception: " + e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * Save the current list of products to the file.
-     */
-    private void saveProductsToFile() {
-        File file = new File(PRODUCTS_FILE);
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            for (Product product : products) {
-                // Assumes Product.toString() returns a JSON-like representation
-                writer.write(product.toString());
-                writer.newLine();
+    /**
+     * Find the k products whose names are closest to a possibly misspelled
+     * keyword, closest first (ties in catalog order).
+     */
+    public List<Product> getProductListByFuzzyKeyword(String keyword, int k) {
+        ProductCatalog current = catalog.get();
+        Map<Product, Double> scores = current.trigramIndex.score(keyword);
+        Comparator<Product> ranking = Comparator.comparingDouble((Product product) -> scores.get(product))
+                .reversed().thenComparing(current.tokenIndex.catalogOrder());
+        // Keep the best k in a heap headed by the weakest of them rather than sorting every match
+        PriorityQueue<Product> top = new PriorityQueue<>(ranking.reversed());
+        for (Product product : scores.keySet()) {
+            if (top.size() < k) {
+                top.add(product);
+            } else if (k > 0 && ranking.compare(product, top.peek()) < 0) {
+                top.poll();
+                top.add(product);
             }
-        } catch (IOException e) {
-            System.err.println("Error saving products: " + e.getMessage());
         }
+        List<Product> ranked = new ArrayList<>(top);
+        ranked.sort(ranking);
+        return ranked;
     }
 
     /**
-     * Get  list of products.
+     * Get a page of the products in one category, in catalog order.
      */
-    public ProductListResult getProductList(int pageNumber) {
-        int pageSize = 10;  // Number of products per page
-        int totalPages = (int) Math.ceil((double) products.size() / pageSize);
+    public ProductListResult getProductListByCategory(String category, int pageNumber) {
+        ProductCatalog current = catalog.get();
+        int pageSize = 10;
+        List<Product> group = current.categoryIndex.products(category);
+        int totalPages = (int) Math.ceil((double) group.size() / pageSize);
 
         if (pageNumber < 1 || pageNumber > totalPages) {
             return new ProductListResult(new ArrayList<>(), 0, 0);
         }
 
         int fromIndex = (pageNumber - 1) * pageSize;
-        int toIndex = Math.min(fromIndex + pageSize, products.size());
+        int toIndex = Math.min(fromIndex + pageSize, group.size());
 
-        return new ProductListResult(
-                products.subList(fromIndex, toIndex),
-                pageNumber,
-                totalPages
-        );
+        return new ProductListResult(new ArrayList<>(group.subList(fromIndex, toIndex)),
+                pageNumber, totalPages);
     }
 
+    /**
+     * Number of products in each category, in category name order.
+     */
+    public Map<String, Integer> getCategoryCounts() {
+        return catalog.get().categoryIndex.counts();
+    }
 
     /**
-     * Search products by a keyword in their name
+     * Get a page of products whose field lies in [min, max], ordered by that field.
+     *
+     * @param field      "price", "discount" or "likes"
+     * @param min        lowest value to include
+     * @param max        highest value to include
+     * @param descending true for highest first (e.g. most liked first)
+     * @param pageNumber page to return, starting at 1
      */
-    public List<Product> getProductListByKeyword(String keyword) {
-        return products.stream()
-                .filter(p -> p.getProName().toLowerCase().contains(keyword.toLowerCase()))
-                .collect(Collectors.toList());
+    public ProductListResult getProductListInRange(String field, double min, double max,
+                                                                boolean descending, int pageNumber) {
+        ProductCatalog current = catalog.get();
+        int pageSize = 10;
+        ProductSortedIndex index = current.sortedIndex(field);
+        if (index == null) {
+            return new ProductListResult(new ArrayList<>(), 0, 0);
+        }
+
+        int low = index.lowerBound(min);
+        int high = index.upperBound(max);
+        int matches = Math.max(0, high - low);
+        int totalPages = (int) Math.ceil((double) matches / pageSize);
+
+        if (pageNumber < 1 || pageNumber > totalPages) {
+            return new ProductListResult(new ArrayList<>(), 0, 0);
+        }
+
+        int offset = (pageNumber - 1) * pageSize;
+        int from = descending ? Math.max(low, high - offset - pageSize) : low + offset;
+        int to = descending ? high - offset : Math.min(high, from + pageSize);
+
+        return new ProductListResult(index.slice(from, to, descending), pageNumber, totalPages);
     }
 
+    /**
+     * Find the products matching every criterion of the query, sorted and limited.
+     * The most selective index among the criteria drives the lookup and the
+     * other criteria are checked on its candidates only.
+     */
+    public List<Product> query(ProductQuery query) {
+        return runQuery(catalog.get(), query, null);
+    }
+
+    /**
+     * Run the query and describe the plan chosen for it: the estimated
+     * candidates of each usable index, the one used, and the remaining steps.
+     */
+    public String explain(ProductQuery query) {
+        StringBuilder plan = new StringBuilder();
+        runQuery(catalog.get(), query, plan);
+        return plan.toString();
+    }
+
+    // Plan and run a query, describing the plan into explain when it is not null
+    private static List<Product> runQuery(ProductCatalog current, ProductQuery query, StringBuilder explain) {
+        String keyword = query.getKeyword();
+        boolean hasKeyword = keyword != null && !ProductTokenIndex.tokenize(keyword).isEmpty();
+        String category = query.getCategory();
+        boolean hasPrice = query.hasPriceRange();
+        int low = hasPrice ? current.priceIndex.lowerBound(query.getMinPrice()) : 0;
+        int high = hasPrice ? current.priceIndex.upperBound(query.getMaxPrice()) : 0;
+
+        // Estimate every access path and keep the smallest
+        String access = "full scan";
+        int estimate = current.products.size();
+        StringBuilder candidates = new StringBuilder("full scan=" + estimate);
+        if (hasKeyword) {
+            int keywordEstimate = current.tokenIndex.estimate(keyword);
+            candidates.append(", keyword index<=").append(keywordEstimate);
+            if (keywordEstimate < estimate) {
+                access = "keyword index";
+                estimate = keywordEstimate;
+            }
+        }
+        if (category != null) {
+            int categoryEstimate = current.categoryIndex.products(category).size();
+            candidates.append(", category index=").append(categoryEstimate);
+            if (categoryEstimate < estimate) {
+                access = "category index";
+                estimate = categoryEstimate;
+            }
+        }
+        if (hasPrice) {
+            int priceEstimate = Math.max(0, high - low);
+            candidates.append(", price index=").append(priceEstimate);
+            if (priceEstimate < estimate) {
+                access = "price index";
+                estimate = priceEstimate;
+            }
+        }
+
+        List<Product> rows;
+        switch (access) {
+            case "keyword index":
+                rows = current.tokenIndex.search(keyword);
+                break;
+            case "category index":
+                rows = new ArrayList<>(current.categoryIndex.products(category));
+                break;
+            case "price index":
+                rows = current.priceIndex.slice(low, Math.max(low, high), false);
+                break;
+            default:
+                rows = new ArrayList<>(current.products);
+        }
+
+        // Check the criteria the access path did not already apply
+        boolean checkKeyword = hasKeyword && !access.equals("keyword index");
+        boolean checkCategory = category != null && !access.equals("category index");
+        boolean checkPrice = hasPrice && !access.equals("price index");
+        if (checkKeyword || checkCategory || checkPrice) {
+            rows.removeIf(product -> (checkKeyword && !ProductTokenIndex.matches(product, keyword))
+                    || (checkCategory && !category.equals(product.getProCategory()))
+                    || (checkPrice && (product.getProCurrentPrice() < query.getMinPrice()
+                    || product.getProCurrentPrice() > query.getMaxPrice())));
+        }
+        List<String> filters = new ArrayList<>();
+        if (checkKeyword) filters.add("keyword");
+        if (checkCategory) filters.add("category");
+        if (checkPrice) filters.add("price");
+
+        // The price index already returns price order; everything else is sorted here
+        ProductSortedIndex sortIndex = query.getSortField() == null ? null : current.sortedIndex(query.getSortField());
+        String sort;
+        if (sortIndex != null) {
+            sort = query.getSortField().toLowerCase() + (query.isDescending() ? " desc" : " asc");
+            if (sortIndex == current.priceIndex && access.equals("price index")) {
+                sort += " (index order)";
+            } else {
+                rows.sort(sortIndex.order());
+            }
+            if (query.isDescending()) {
+                Collections.reverse(rows);
+            }
+        } else {
+            sort = "catalog order";
+            if (access.equals("price index")) {
+                rows.sort(current.tokenIndex.catalogOrder());
+            }
+        }
+
+        if (rows.size() > query.getLimit()) {
+            rows = new ArrayList<>(rows.subList(0, Math.max(0, query.getLimit())));
+        }
+
+        if (explain != null) {
+            explain.append("candidates: ").append(candidates).append('\n')
+                    .append("access: ").append(access).append(" (").append(estimate).append(" rows)").append('\n')
+                    .append("filter: ").append(filters.isEmpty() ? "none" : String.join(", ", filters)).append('\n')
+                    .append("sort: ").append(sort).append('\n')
+                    .append("limit: ").append(query.getLimit() == Integer.MAX_VALUE ? "none" : query.getLimit()).append('\n')
+                    .append("rows: ").append(rows.size());
+        }
+        return rows;
+    }
+
+    /**
+     * Generate a unique product ID from the time, node and a per-millisecond sequence.
+     */
+    public String generateUniqueProductId() {
+        return IdGenerator.PRODUCTS.nextId();
+    }
+
+    /**
+     * Add a product, or replace the product with the same ID.
+     */
+    public CompletableFuture<Void> addProduct(Product product) {
+        writeLock.lock();
+        try {
+            catalog.set(catalog.get().with(product));
+            return store.put(product);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Delete a single product by ID.
+     *
+     * @return false if no product has that ID
+     */
+    public boolean deleteProduct(String proId) {
+        writeLock.lock();
+        try {
+            ProductCatalog current = catalog.get();
+            if (!current.productsById.containsKey(proId)) {
+                return false;
+            }
+            catalog.set(current.without(proId));
+            store.delete(proId);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
 
-    // Placeholder methods for generating various charts based on product data
     public void generateCategoryFigure() {
-        // Charting logic placeholder
+        TextChart.print("Products per Category", getCategoryCounts(), "%d");
     }
 
+    // Placeholder methods for generating various charts based on product data
+
     public void generateDiscountFigure() {
         // Charting logic placeholder
     }
@@ -181,11 +388,16 @@ public class ProductOperation {
     }
 
     /**
-     * Delete all products and save the empty list to the file.
+     * Delete all products and journal the empty catalog.
      */
-    public void deleteAllProducts() {
-        products.clear();
-        saveProductsToFile();
+    public CompletableFuture<Void> deleteAllProducts() {
+        writeLock.lock();
+        try {
+            catalog.set(ProductCatalog.EMPTY);
+            return store.replaceAll(ProductCatalog.EMPTY.products);
+        } finally {
+            writeLock.unlock();
+        }
     }
 
 }
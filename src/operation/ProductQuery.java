@@ -0,0 +1,66 @@
+package operation;
+
+/**
+ * Criteria for {@link ProductOperation#query}: every criterion that is set
+ * must match (keyword AND category AND price range), followed by an optional
+ * sort and limit. Setters return the query so criteria can be chained.
+ */
+public class ProductQuery {
+
+    // Words that must start words of the product name, or null for any name
+    private String keyword;
+
+    // Exact pro_category, or null for any category
+    private String category;
+
+    // Inclusive current-price range
+    private double minPrice = Double.NEGATIVE_INFINITY;
+    private double maxPrice = Double.POSITIVE_INFINITY;
+
+    // "price", "discount" or "likes", or null for catalog order
+    private String sortField;
+    private boolean descending;
+
+    // Maximum number of results
+    private int limit = Integer.MAX_VALUE;
+
+    public ProductQuery keyword(String keyword) {
+        this.keyword = keyword;
+        return this;
+    }
+
+    public ProductQuery category(String category) {
+        this.category = category;
+        return this;
+    }
+
+    public ProductQuery priceBetween(double minPrice, double maxPrice) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        return this;
+    }
+
+    public ProductQuery sortBy(String sortField, boolean descending) {
+        this.sortField = sortField;
+        this.descending = descending;
+        return this;
+    }
+
+    public ProductQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    String getKeyword() { return keyword; }
+    String getCategory() { return category; }
+    double getMinPrice() { return minPrice; }
+    double getMaxPrice() { return maxPrice; }
+    String getSortField() { return sortField; }
+    boolean isDescending() { return descending; }
+    int getLimit() { return limit; }
+
+    // True if a price bound was set
+    boolean hasPriceRange() {
+        return minPrice != Double.NEGATIVE_INFINITY || maxPrice != Double.POSITIVE_INFINITY;
+    }
+}
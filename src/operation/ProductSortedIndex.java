@@ -0,0 +1,101 @@
+package operation;
+
+import model.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Products kept sorted by one numeric field (ties broken by product ID).
+ * Range bounds are found by binary search and a page is a slice of the
+ * array, so range queries and ordered paging cost O(log n + page size).
+ * Inserts and removals shift the array, which suits a read-mostly catalog.
+ */
+final class ProductSortedIndex {
+    private final ToDoubleFunction<Product> key;
+    private final Comparator<Product> order;
+    private final ArrayList<Product> sorted;
+
+    ProductSortedIndex(ToDoubleFunction<Product> key) {
+        this.key = key;
+        this.order = Comparator.comparingDouble(key).thenComparing(Product::getProId);
+        this.sorted = new ArrayList<>();
+    }
+
+    // Index of the given products, sorted once instead of inserted one by one
+    ProductSortedIndex(ToDoubleFunction<Product> key, List<Product> products) {
+        this(key);
+        sorted.addAll(products);
+        sorted.sort(order);
+    }
+
+    // Copy of another index; copying the sorted array is one array copy, no sort
+    ProductSortedIndex(ProductSortedIndex source) {
+        this.key = source.key;
+        this.order = source.order;
+        this.sorted = new ArrayList<>(source.sorted);
+    }
+
+    // Ascending field order, ties by product ID
+    Comparator<Product> order() {
+        return order;
+    }
+
+    void add(Product product) {
+        int position = search(product);
+        sorted.add(position < 0 ? -position - 1 : position, product);
+    }
+
+    void remove(Product product) {
+        int position = search(product);
+        if (position >= 0) {
+            sorted.remove(position);
+        }
+    }
+
+    // First position whose key is >= value
+    int lowerBound(double value) {
+        int low = 0, high = sorted.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key.applyAsDouble(sorted.get(middle)) < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // First position whose key is > value
+    int upperBound(double value) {
+        int low = 0, high = sorted.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key.applyAsDouble(sorted.get(middle)) <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Copy of the products at sorted positions [from, to), optionally reversed.
+     */
+    List<Product> slice(int from, int to, boolean descending) {
+        List<Product> page = new ArrayList<>(sorted.subList(from, to));
+        if (descending) {
+            Collections.reverse(page);
+        }
+        return page;
+    }
+
+    private int search(Product product) {
+        return Collections.binarySearch(sorted, product, order);
+    }
+}
@@ -0,0 +1,173 @@
+package operation;
+
+import model.Product;
+
+import java.util.*;
+
+/**
+ * Inverted index from lowercase name tokens to the products containing them.
+ * Tokens are kept sorted so a query token matches every indexed token it is a
+ * prefix of ("gala" finds "galaxy"); a multi-word query intersects the posting
+ * lists of its tokens, starting from the smallest.
+ * Results come back in catalog order, tracked with an insertion sequence.
+ *
+ * A copy shares its posting lists with the original and copies a list only
+ * when it first changes it, so a catalog snapshot can be derived from the
+ * previous one without re-tokenizing every name.
+ */
+final class ProductTokenIndex {
+    private final TreeMap<String, Set<Product>> postings;
+    private final Map<Product, Long> sequence;
+    private long nextSequence;
+
+    // Posting lists created by this index; any other list is shared and read-only
+    private final Set<Set<Product>> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    ProductTokenIndex() {
+        postings = new TreeMap<>();
+        sequence = new IdentityHashMap<>();
+    }
+
+    // Copy that shares the posting lists of the source until it changes them
+    ProductTokenIndex(ProductTokenIndex source) {
+        postings = new TreeMap<>(source.postings);
+        sequence = new IdentityHashMap<>(source.sequence);
+        nextSequence = source.nextSequence;
+    }
+
+    /**
+     * Split text into lowercase runs of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    void add(Product product) {
+        sequence.put(product, nextSequence++);
+        for (String token : tokenize(product.getProName())) {
+            writablePosting(token).add(product);
+        }
+    }
+
+    void remove(Product product) {
+        if (sequence.remove(product) == null) {
+            return;
+        }
+        for (String token : tokenize(product.getProName())) {
+            if (postings.containsKey(token)) {
+                Set<Product> posting = writablePosting(token);
+                posting.remove(product);
+                if (posting.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    // Posting list of a token that this index may change, created or copied as needed
+    private Set<Product> writablePosting(String token) {
+        Set<Product> posting = postings.get(token);
+        if (posting == null || !owned.contains(posting)) {
+            Set<Product> copy = Collections.newSetFromMap(new IdentityHashMap<>());
+            if (posting != null) {
+                copy.addAll(posting);
+            }
+            postings.put(token, copy);
+            owned.add(copy);
+            posting = copy;
+        }
+        return posting;
+    }
+
+    /**
+     * Products whose name has, for every query token, a token starting with it.
+     */
+    List<Product> search(String keyword) {
+        List<String> queryTokens = tokenize(keyword);
+        if (queryTokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Set<Product>> matches = new ArrayList<>();
+        for (String token : queryTokens) {
+            Set<Product> tokenMatches = prefixMatches(token);
+            if (tokenMatches.isEmpty()) {
+                return new ArrayList<>();
+            }
+            matches.add(tokenMatches);
+        }
+
+        // Intersect starting from the most selective token
+        matches.sort(Comparator.comparingInt(Set::size));
+        List<Product> result = new ArrayList<>(matches.get(0));
+        for (int i = 1; i < matches.size(); i++) {
+            result.retainAll(matches.get(i));
+        }
+        result.sort(catalogOrder());
+        return result;
+    }
+
+    /**
+     * Upper bound on the number of search results: the match count of the
+     * most selective query token.
+     */
+    int estimate(String keyword) {
+        int best = Integer.MAX_VALUE;
+        for (String token : tokenize(keyword)) {
+            best = Math.min(best, prefixMatches(token).size());
+        }
+        return best == Integer.MAX_VALUE ? 0 : best;
+    }
+
+    /**
+     * Check one product against a keyword without touching the postings.
+     */
+    static boolean matches(Product product, String keyword) {
+        List<String> nameTokens = tokenize(product.getProName());
+        for (String queryToken : tokenize(keyword)) {
+            boolean found = false;
+            for (String nameToken : nameTokens) {
+                if (nameToken.startsWith(queryToken)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Products in the order they were added to the catalog
+    Comparator<Product> catalogOrder() {
+        return Comparator.comparingLong(sequence::get);
+    }
+
+    // Union of the postings of every indexed token starting with the prefix
+    private Set<Product> prefixMatches(String prefix) {
+        SortedMap<String, Set<Product>> range = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (range.size() == 1) {
+            return range.values().iterator().next();
+        }
+        Set<Product> union = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Set<Product> posting : range.values()) {
+            union.addAll(posting);
+        }
+        return union;
+    }
+}
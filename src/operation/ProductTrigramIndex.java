@@ -0,0 +1,180 @@
+package operation;
+
+import model.Product;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Typo-tolerant name search. Every distinct name token is split into padded
+ * trigrams ("$ip", "iph", ... "ne$"), and each trigram lists the tokens that
+ * contain it. A query token is compared only with the tokens sharing at least
+ * one of its trigrams, so the work grows with the number of similar words,
+ * not with the catalog size.
+ *
+ * Similarity of two tokens is the Dice coefficient of their trigram sets;
+ * a product scores the sum, over the query tokens, of its best matching
+ * name token.
+ *
+ * Trigrams shared by very many tokens ("$co", "ing") are the expensive ones
+ * to expand. As a match must share a minimum number of trigrams with the
+ * query token, the most common few can be left out when collecting
+ * candidates and only checked for the candidates found through the rest.
+ *
+ * A copy shares its sets with the original and copies a set only when it
+ * first changes it.
+ */
+final class ProductTrigramIndex {
+    // Lowest token similarity that still counts as a match
+    private static final double MIN_SIMILARITY = 0.3;
+
+    // Query trigrams listing more tokens than this are not expanded when they can be skipped
+    private static final int COMMON_TRIGRAM_TOKENS = 256;
+
+    private final Map<String, Set<String>> tokensByTrigram;
+    private final Map<String, Set<Product>> productsByToken;
+
+    // Sets created by this index; any other set is shared and read-only
+    private final Set<Set<?>> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    ProductTrigramIndex() {
+        tokensByTrigram = new HashMap<>();
+        productsByToken = new HashMap<>();
+    }
+
+    // Copy that shares the sets of the source until it changes them
+    ProductTrigramIndex(ProductTrigramIndex source) {
+        tokensByTrigram = new HashMap<>(source.tokensByTrigram);
+        productsByToken = new HashMap<>(source.productsByToken);
+    }
+
+    // Padded trigrams of a token; a token of length n has n trigrams
+    static Set<String> trigrams(String token) {
+        String padded = "$" + token + "$";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    void add(Product product) {
+        for (String token : ProductTokenIndex.tokenize(product.getProName())) {
+            if (!productsByToken.containsKey(token)) {
+                for (String trigram : trigrams(token)) {
+                    writable(tokensByTrigram, trigram, HashSet::new).add(token);
+                }
+            }
+            writable(productsByToken, token, () -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                    .add(product);
+        }
+    }
+
+    void remove(Product product) {
+        for (String token : ProductTokenIndex.tokenize(product.getProName())) {
+            Set<Product> products = productsByToken.get(token);
+            if (products == null || !products.contains(product)) {
+                continue;
+            }
+            products = writable(productsByToken, token, () -> Collections.newSetFromMap(new IdentityHashMap<>()));
+            products.remove(product);
+            if (!products.isEmpty()) {
+                continue;
+            }
+            productsByToken.remove(token);
+            for (String trigram : trigrams(token)) {
+                if (tokensByTrigram.containsKey(trigram)) {
+                    Set<String> tokens = writable(tokensByTrigram, trigram, HashSet::new);
+                    tokens.remove(token);
+                    if (tokens.isEmpty()) {
+                        tokensByTrigram.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    // Set under a key that this index may change, created or copied as needed
+    private <T> Set<T> writable(Map<String, Set<T>> map, String key, Supplier<Set<T>> empty) {
+        Set<T> set = map.get(key);
+        if (set == null || !owned.contains(set)) {
+            Set<T> copy = empty.get();
+            if (set != null) {
+                copy.addAll(set);
+            }
+            map.put(key, copy);
+            owned.add(copy);
+            set = copy;
+        }
+        return set;
+    }
+
+    /**
+     * Score every product with a name token similar to a query token.
+     *
+     * @return product scores, higher is closer; products without a match are absent
+     */
+    Map<Product, Double> score(String query) {
+        Map<Product, Double> scores = new IdentityHashMap<>();
+        for (String queryToken : ProductTokenIndex.tokenize(query)) {
+            Set<String> queryTrigrams = trigrams(queryToken);
+            List<String> skipped = skippable(queryTrigrams);
+
+            // Shared trigram count of each candidate token
+            Map<String, Integer> shared = new HashMap<>();
+            for (String trigram : queryTrigrams) {
+                if (skipped.contains(trigram)) {
+                    continue;
+                }
+                for (String token : tokensByTrigram.getOrDefault(trigram, Collections.emptySet())) {
+                    shared.merge(token, 1, Integer::sum);
+                }
+            }
+
+            // Best similarity each product reaches for this query token
+            Map<Product, Double> best = new IdentityHashMap<>();
+            for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+                String token = entry.getKey();
+                int count = entry.getValue();
+                for (String trigram : skipped) {
+                    if (tokensByTrigram.get(trigram).contains(token)) {
+                        count++;
+                    }
+                }
+                double similarity = 2.0 * count / (queryTrigrams.size() + token.length());
+                if (similarity < MIN_SIMILARITY) {
+                    continue;
+                }
+                for (Product product : productsByToken.get(token)) {
+                    best.merge(product, similarity, Math::max);
+                }
+            }
+            for (Map.Entry<Product, Double> entry : best.entrySet()) {
+                scores.merge(entry.getKey(), entry.getValue(), Double::sum);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * The most common query trigrams that can go unexpanded without missing a
+     * match. A token has at least as many trigrams as it shares, so a match
+     * sharing s of the q query trigrams needs 2s / (q + s) >= MIN_SIMILARITY;
+     * with fewer than the smallest such s skipped, every match still shares
+     * one of the expanded trigrams.
+     */
+    private List<String> skippable(Set<String> queryTrigrams) {
+        int minShared = 1;
+        while (2.0 * minShared / (queryTrigrams.size() + minShared) < MIN_SIMILARITY) {
+            minShared++;
+        }
+        List<String> common = new ArrayList<>();
+        for (String trigram : queryTrigrams) {
+            if (tokensByTrigram.getOrDefault(trigram, Collections.emptySet()).size() > COMMON_TRIGRAM_TOKENS) {
+                common.add(trigram);
+            }
+        }
+        common.sort(Comparator.comparingInt((String trigram) -> tokensByTrigram.get(trigram).size()).reversed());
+        return common.size() < minShared ? common : new ArrayList<>(common.subList(0, minShared - 1));
+    }
+}
@@ -0,0 +1,128 @@
+package operation;
+
+import model.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Describes how one record type is read from and written to a data file line.
+ * Shared by the loaders and the journal so every store uses the same format.
+ *
+ * @param <T> record type
+ */
+interface RecordCodec<T> {
+
+    /**
+     * Parse one line into a record.
+     *
+     * @return the record, or null if the line is not a valid record
+     */
+    T parse(RecordParser parser, String line);
+
+    /**
+     * Parse one data or journal line, skipping blanks and malformed records.
+     */
+    default T parseLine(RecordParser parser, String line) {
+        line = line.trim();
+        if (!line.startsWith("{") || !line.endsWith("}")) {
+            return null;
+        }
+        try {
+            return parse(parser, line);
+        } catch (Exception e) {
+            System.err.println("Error parsing record: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // JSON-like line written to the data file
+    String format(T record);
+
+    // Unique key used when the journal updates or deletes a record
+    String idOf(T record);
+
+    // Binary form used by snapshots
+    void write(DataOutput out, T record) throws IOException;
+
+    T read(DataInput in) throws IOException;
+
+    RecordCodec<User> USERS = new RecordCodec<>() {
+        public User parse(RecordParser parser, String line) { return parser.parseUser(line); }
+        public String format(User user) { return user.toString(); }
+        public String idOf(User user) { return user.getUserId(); }
+
+        public void write(DataOutput out, User user) throws IOException {
+            RecordSnapshot.writeString(out, user.getUserId());
+            RecordSnapshot.writeString(out, user.getUserName());
+            RecordSnapshot.writeString(out, user.getUserPassword());
+            RecordSnapshot.writeString(out, user.getUserRegisterTime());
+            RecordSnapshot.writeString(out, user.getUserRole());
+            boolean isCustomer = user instanceof Customer;
+            out.writeBoolean(isCustomer);
+            if (isCustomer) {
+                RecordSnapshot.writeString(out, ((Customer) user).getUserEmail());
+                RecordSnapshot.writeString(out, ((Customer) user).getUserMobile());
+            }
+        }
+
+        public User read(DataInput in) throws IOException {
+            String userId = StringDictionary.USER_IDS.intern(RecordSnapshot.readString(in));
+            String userName = RecordSnapshot.readString(in);
+            String password = RecordSnapshot.readString(in);
+            String registerTime = RecordSnapshot.readString(in);
+            String role = StringDictionary.ROLES.intern(RecordSnapshot.readString(in));
+            if (in.readBoolean()) {
+                return new Customer(userId, userName, password, registerTime, role,
+                        RecordSnapshot.readString(in), RecordSnapshot.readString(in));
+            }
+            return new Admin(userId, userName, password, registerTime, role);
+        }
+    };
+
+    RecordCodec<Product> PRODUCTS = new RecordCodec<>() {
+        public Product parse(RecordParser parser, String line) { return parser.parseProduct(line); }
+        public String format(Product product) { return product.toString(); }
+        public String idOf(Product product) { return product.getProId(); }
+
+        public void write(DataOutput out, Product product) throws IOException {
+            RecordSnapshot.writeString(out, product.getProId());
+            RecordSnapshot.writeString(out, product.getProModel());
+            RecordSnapshot.writeString(out, product.getProCategory());
+            RecordSnapshot.writeString(out, product.getProName());
+            out.writeDouble(product.getProCurrentPrice());
+            out.writeDouble(product.getProRawPrice());
+            out.writeDouble(product.getProDiscount());
+            out.writeInt(product.getProLikesCount());
+        }
+
+        public Product read(DataInput in) throws IOException {
+            return new Product(StringDictionary.PRODUCT_IDS.intern(RecordSnapshot.readString(in)),
+                    RecordSnapshot.readString(in),
+                    StringDictionary.CATEGORIES.intern(RecordSnapshot.readString(in)),
+                    RecordSnapshot.readString(in),
+                    in.readDouble(), in.readDouble(), in.readDouble(), in.readInt());
+        }
+    };
+
+    RecordCodec<Order> ORDERS = new RecordCodec<>() {
+        public Order parse(RecordParser parser, String line) { return parser.parseOrder(line); }
+        public String format(Order order) { return order.toString(); }
+        public String idOf(Order order) { return order.getOrderId(); }
+
+        public void write(DataOutput out, Order order) throws IOException {
+            RecordSnapshot.writeString(out, order.getOrderId());
+            RecordSnapshot.writeString(out, order.getUserId());
+            RecordSnapshot.writeString(out, order.getProId());
+            RecordSnapshot.writeString(out, order.getOrderTime());
+        }
+
+        public Order read(DataInput in) throws IOException {
+            return new Order(RecordSnapshot.readString(in),
+                    StringDictionary.USER_IDS.intern(RecordSnapshot.readString(in)),
+                    StringDictionary.PRODUCT_IDS.intern(RecordSnapshot.readString(in)),
+                    RecordSnapshot.readString(in));
+        }
+    };
+}
@@ -0,0 +1,236 @@
+package operation;
+
+import model.*;
+
+/**
+ * Single-pass parser for the JSON-like lines stored in the data files,
+ * e.g. {"key":"value", "key":123}.
+ * The parser walks the line once and exposes each key/value pair in place,
+ * so loaders can write fields straight into model constructors without
+ * building a map or running any regex per line.
+ */
+final class RecordParser {
+    private String line;   // Line currently being scanned
+    private int pos;       // Scan position inside the line
+    private int end;       // Index of the closing brace
+    private int keyStart;  // Bounds of the current key (without quotes)
+    private int keyEnd;
+    private int valueStart; // Bounds of the current value (without quotes)
+    private int valueEnd;
+
+    /**
+     * Start scanning a new line.
+     *
+     * @param line input line
+     * @return false if the line is not a {...} record
+     */
+    boolean reset(String line) {
+        this.line = line;
+        int start = skipWhitespace(0);
+        int last = line.length() - 1;
+        while (last >= 0 && Character.isWhitespace(line.charAt(last))) {
+            last--;
+        }
+        if (start > last || line.charAt(start) != '{' || line.charAt(last) != '}') {
+            return false;
+        }
+        this.pos = start + 1;
+        this.end = last;
+        return true;
+    }
+
+    /**
+     * Advance to the next key/value pair.
+     *
+     * @return false when the record has no more pairs
+     */
+    boolean next() {
+        pos = skipWhitespace(pos);
+        if (pos < end && line.charAt(pos) == ',') {
+            pos = skipWhitespace(pos + 1);
+        }
+        if (pos >= end || line.charAt(pos) != '"') {
+            return false;
+        }
+
+        // Key is always quoted
+        keyStart = pos + 1;
+        keyEnd = line.indexOf('"', keyStart);
+        if (keyEnd < 0 || keyEnd > end) {
+            return false;
+        }
+        pos = skipWhitespace(keyEnd + 1);
+        if (pos >= end || line.charAt(pos) != ':') {
+            return false;
+        }
+        pos = skipWhitespace(pos + 1);
+
+        // Value is either a quoted string or a bare number
+        if (pos < end && line.charAt(pos) == '"') {
+            valueStart = pos + 1;
+            valueEnd = line.indexOf('"', valueStart);
+            if (valueEnd < 0 || valueEnd > end) {
+                return false;
+            }
+            pos = valueEnd + 1;
+        } else {
+            valueStart = pos;
+            while (pos < end && line.charAt(pos) != ',') {
+                pos++;
+            }
+            valueEnd = pos;
+            while (valueEnd > valueStart && Character.isWhitespace(line.charAt(valueEnd - 1))) {
+                valueEnd--;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check the current key without allocating a string for it.
+     */
+    boolean keyIs(String name) {
+        return keyEnd - keyStart == name.length()
+                && line.regionMatches(keyStart, name, 0, name.length());
+    }
+
+    // Current value as a string
+    String value() {
+        return line.substring(valueStart, valueEnd).trim();
+    }
+
+    // Current value as the dictionary's shared instance
+    String value(StringDictionary dictionary) {
+        return dictionary.intern(value());
+    }
+
+    // Current value parsed as a double
+    double doubleValue() {
+        return Double.parseDouble(value());
+    }
+
+    // Current value parsed as an int, digits read in place
+    int intValue() {
+        int i = valueStart;
+        boolean negative = false;
+        if (i < valueEnd && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+        if (i >= valueEnd) {
+            throw new NumberFormatException("Empty number in: " + line);
+        }
+        int result = 0;
+        for (; i < valueEnd; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return Integer.parseInt(value());
+            }
+            result = result * 10 + (c - '0');
+        }
+        return negative ? -result : result;
+    }
+
+    private int skipWhitespace(int from) {
+        while (from < line.length() && Character.isWhitespace(line.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Parse a user line into an Admin or Customer.
+     *
+     * @return the user, or null if the line is not a user record
+     */
+    User parseUser(String line) {
+        if (!reset(line)) {
+            return null;
+        }
+        String userId = null, userName = null, password = null, registerTime = null;
+        String role = null, email = null, mobile = null;
+
+        while (next()) {
+            if (keyIs("user_id")) userId = value(StringDictionary.USER_IDS);
+            else if (keyIs("user_name")) userName = value();
+            else if (keyIs("user_password")) password = value();
+            else if (keyIs("user_register_time")) registerTime = value();
+            else if (keyIs("user_role")) role = value(StringDictionary.ROLES);
+            else if (keyIs("user_email")) email = value();
+            else if (keyIs("user_mobile")) mobile = value();
+            else if (keyIs("order_id") || keyIs("pro_id")) {
+                System.err.println("Skipping non-user record in users file: " + line);
+                return null;
+            }
+        }
+
+        if (userId == null) {
+            return null;
+        }
+        if ("admin".equalsIgnoreCase(role)) {
+            return new Admin(userId, userName, password, registerTime, role);
+        }
+        return new Customer(userId, userName, password, registerTime, role, email, mobile);
+    }
+
+    /**
+     * Parse a product line.
+     *
+     * @return the product, or null if parsing fails
+     */
+    Product parseProduct(String line) {
+        if (!reset(line)) {
+            return null;
+        }
+        String proId = null, proModel = null, proCategory = null, proName = null;
+        double currentPrice = 0.0, rawPrice = 0.0, discount = 0.0;
+        int likesCount = 0;
+
+        try {
+            while (next()) {
+                if (keyIs("pro_id")) proId = value(StringDictionary.PRODUCT_IDS);
+                else if (keyIs("pro_model")) proModel = value();
+                else if (keyIs("pro_category")) proCategory = value(StringDictionary.CATEGORIES);
+                else if (keyIs("pro_name")) proName = value();
+                else if (keyIs("pro_current_price")) currentPrice = doubleValue();
+                else if (keyIs("pro_raw_price")) rawPrice = doubleValue();
+                else if (keyIs("pro_discount")) discount = doubleValue();
+                else if (keyIs("pro_likes_count")) likesCount = intValue();
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing product line: " + line);
+            System.err.println("Exception: " + e.getMessage());
+            return null;
+        }
+
+        if (proId == null) {
+            return null;
+        }
+        return new Product(proId, proModel, proCategory, proName,
+                currentPrice, rawPrice, discount, likesCount);
+    }
+
+    /**
+     * Parse an order line.
+     *
+     * @return the order, or null if the line is not an order record
+     */
+    Order parseOrder(String line) {
+        if (!reset(line)) {
+            return null;
+        }
+        String orderId = null, userId = null, proId = null, orderTime = null;
+
+        while (next()) {
+            if (keyIs("order_id")) orderId = value();
+            else if (keyIs("user_id")) userId = value(StringDictionary.USER_IDS);
+            else if (keyIs("pro_id")) proId = value(StringDictionary.PRODUCT_IDS);
+            else if (keyIs("order_time")) orderTime = value();
+        }
+
+        if (orderId == null) {
+            return null;
+        }
+        return new Order(orderId, userId, proId, orderTime);
+    }
+}
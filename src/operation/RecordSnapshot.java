@@ -0,0 +1,112 @@
+package operation;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary copy of a data file used for fast cold starts.
+ * Layout: magic, format version, record count, the length-prefixed records
+ * written by the codec, then a CRC32 of everything before it.
+ */
+final class RecordSnapshot {
+    private static final int MAGIC = 0x4F4F5053;  // "OOPS"
+    private static final short VERSION = 1;
+
+    private RecordSnapshot() {
+    }
+
+    /**
+     * Write the records to the snapshot file, replacing it atomically.
+     * Each call writes its own temporary file, so concurrent writers never
+     * interleave their bytes; the last one moved in wins.
+     */
+    static <T> void write(File file, List<T> records, RecordCodec<T> codec) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        File tmp = Files.createTempFile(dir.toPath(), file.getName() + ".", ".tmp").toFile();
+        try {
+            writeTo(tmp, records, codec);
+            Files.move(tmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    private static <T> void writeTo(File tmp, List<T> records, RecordCodec<T> codec) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fileOut = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     new CheckedOutputStream(fileOut, crc)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(records.size());
+            for (T record : records) {
+                codec.write(out, record);
+            }
+            out.flush();
+            // Checksum covers header and records, and is not part of itself
+            out.writeLong(crc.getValue());
+            out.flush();
+            fileOut.getChannel().force(true);
+        }
+    }
+
+    /**
+     * Read a snapshot written by {@link #write}.
+     *
+     * @return the records, or null if the file is missing, from another
+     *         version, truncated or fails its checksum
+     */
+    static <T> List<T> read(File file, RecordCodec<T> codec) {
+        if (!file.exists()) {
+            return null;
+        }
+
+        CRC32 crc = new CRC32();
+        // Checksum sits above the buffer so it only sees bytes actually consumed
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(new FileInputStream(file)), crc))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                return null;
+            }
+            // The count is not checksummed yet; every record takes at least one byte
+            int count = in.readInt();
+            if (count < 0 || count > file.length()) {
+                System.err.println("Invalid record count in snapshot: " + file);
+                return null;
+            }
+            List<T> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                records.add(codec.read(in));
+            }
+
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                System.err.println("Checksum mismatch in snapshot: " + file);
+                return null;
+            }
+            return records;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading snapshot " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Nullable string: presence flag followed by modified UTF-8
+    static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
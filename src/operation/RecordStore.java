@@ -0,0 +1,283 @@
+package operation;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * Persists one record type as a base copy, kept by a {@link StorageBackend},
+ * plus an append-only journal.
+ * Each mutation appends one small line to the journal ("PUT {...}", "DEL id"
+ * or "CLEAR") instead of rewriting the whole base copy. The journal is replayed
+ * on load and periodically compacted back into the backend in the background.
+ * Journal entries are group-committed by the {@link PersistenceFlusher}.
+ *
+ * @param <T> record type
+ */
+final class RecordStore<T> {
+    // Compact once the journal holds this many entries
+    private static final int COMPACT_THRESHOLD = 1000;
+    // How often the background compactor checks the journals
+    private static final long COMPACT_INTERVAL_SECONDS = 30;
+
+    private static final String PUT = "PUT ";
+    private static final String DEL = "DEL ";
+    private static final String CLEAR = "CLEAR";
+
+    // One daemon thread shared by all stores for compaction
+    private static final ScheduledExecutorService COMPACTOR =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "record-store-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final StorageBackend<T> backend;
+    private final File journalFile;
+    private final RecordCodec<T> codec;
+    private final Lock lock;                   // Owner's read lock guarding the in-memory records
+    private final Supplier<List<T>> current;   // Current in-memory records, read under lock
+    private final Object compactionLock = new Object();
+
+    private final Object writeLock = new Object();  // Serializes journal writes and truncation
+
+    private FileOutputStream journalOut;  // Lazily opened append stream, guarded by writeLock
+    private int journalEntries;           // Entries on disk since the last compaction, guarded by writeLock
+
+    // Entries waiting for the next group commit, guarded by this
+    private final StringBuilder pending = new StringBuilder();
+    private int pendingEntries;
+    private CompletableFuture<Void> pendingCommit = new CompletableFuture<>();
+
+    /**
+     * @param backend  storage engine for the base copy
+     * @param codec    line format of the records
+     * @param lock     read side of the lock the owner holds while mutating its records
+     * @param current  supplies the owner's current records for compaction
+     */
+    RecordStore(StorageBackend<T> backend, RecordCodec<T> codec, Lock lock, Supplier<List<T>> current) {
+        this.backend = backend;
+        this.journalFile = new File(backend.location().getPath() + ".journal");
+        this.codec = codec;
+        this.lock = lock;
+        this.current = current;
+        COMPACTOR.scheduleWithFixedDelay(this::compactIfNeeded,
+                COMPACT_INTERVAL_SECONDS, COMPACT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Load the base copy from the backend and replay the journal on top of it.
+     */
+    List<T> load() {
+        return replayJournal(backend.loadAll());
+    }
+
+    // True when the journal holds entries not yet folded into the base copy
+    boolean hasJournal() {
+        return journalFile.length() > 0;
+    }
+
+    /**
+     * Apply journal entries, in order, to the records loaded from the base file.
+     */
+    private List<T> replayJournal(List<T> records) {
+        if (!journalFile.exists()) {
+            return records;
+        }
+
+        // Position of each id in the list, built once for the whole replay
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            positions.put(codec.idOf(records.get(i)), i);
+        }
+
+        RecordParser parser = new RecordParser();
+        try (BufferedReader reader = new BufferedReader(new FileReader(journalFile, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                journalEntries++;
+                if (line.startsWith(PUT)) {
+                    T record = codec.parseLine(parser, line.substring(PUT.length()));
+                    if (record == null) {
+                        continue;
+                    }
+                    Integer position = positions.get(codec.idOf(record));
+                    if (position != null) {
+                        records.set(position, record);
+                    } else {
+                        positions.put(codec.idOf(record), records.size());
+                        records.add(record);
+                    }
+                } else if (line.startsWith(DEL)) {
+                    Integer position = positions.remove(line.substring(DEL.length()));
+                    if (position != null) {
+                        records.set(position, null);
+                    }
+                } else if (line.equals(CLEAR)) {
+                    records.clear();
+                    positions.clear();
+                }
+                // Anything else is a torn write from a crash and is ignored
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying " + journalFile + ": " + e.getMessage());
+        }
+
+        records.removeIf(Objects::isNull);
+        return records;
+    }
+
+    /**
+     * Record an added or updated record. Caller must hold the owner's write lock.
+     *
+     * @return completes once the change is durable on disk
+     */
+    CompletableFuture<Void> put(T record) {
+        return append(PUT + codec.format(record));
+    }
+
+    /**
+     * Record a deleted record. Caller must hold the owner's write lock.
+     *
+     * @return completes once the change is durable on disk
+     */
+    CompletableFuture<Void> delete(String id) {
+        return append(DEL + id);
+    }
+
+    /**
+     * Record that the whole table was replaced by the given records, then
+     * schedule a compaction since the change is as large as the table.
+     * Caller must hold the owner's write lock.
+     *
+     * @return completes once the change is durable on disk
+     */
+    CompletableFuture<Void> replaceAll(List<T> records) {
+        CompletableFuture<Void> durable = append(CLEAR);
+        for (T record : records) {
+            durable = append(PUT + codec.format(record));
+        }
+        COMPACTOR.execute(this::compact);
+        return durable;
+    }
+
+    /**
+     * Queue an entry for the next group commit. Entries queued before the
+     * flusher picks up the batch share one write and one fsync.
+     */
+    private synchronized CompletableFuture<Void> append(String entry) {
+        pending.append(entry).append('\n');
+        pendingEntries++;
+        PersistenceFlusher.getInstance().markDirty(this);
+        return pendingCommit;
+    }
+
+    /**
+     * Write the queued entries to the journal in one batch and force them to
+     * disk. Called by the flusher thread, and before compaction.
+     */
+    void flushPending() {
+        synchronized (writeLock) {
+            String batch;
+            int batchEntries;
+            CompletableFuture<Void> commit;
+            synchronized (this) {
+                if (pendingEntries == 0) {
+                    return;
+                }
+                batch = pending.toString();
+                batchEntries = pendingEntries;
+                commit = pendingCommit;
+                pending.setLength(0);
+                pendingEntries = 0;
+                pendingCommit = new CompletableFuture<>();
+            }
+
+            try {
+                if (journalOut == null) {
+                    journalOut = new FileOutputStream(journalFile, true);
+                }
+                journalOut.write(batch.getBytes(StandardCharsets.UTF_8));
+                journalOut.getChannel().force(false);
+                journalEntries += batchEntries;
+                commit.complete(null);
+            } catch (IOException e) {
+                System.err.println("Error writing " + journalFile + ": " + e.getMessage());
+                commit.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void compactIfNeeded() {
+        boolean due;
+        synchronized (writeLock) {
+            due = journalEntries >= COMPACT_THRESHOLD;
+        }
+        if (due) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrite the base file from the owner's records and drop the journal
+     * entries it now contains. Entries appended while the base file is being
+     * written are kept in the journal.
+     */
+    void compact() {
+        synchronized (compactionLock) {
+            flushPending();
+
+            List<T> records;
+            long mark;
+            int entriesAtMark;
+            synchronized (writeLock) {
+                lock.lock();
+                try {
+                    if (journalEntries == 0) {
+                        return;
+                    }
+                    records = new ArrayList<>(current.get());
+                } finally {
+                    lock.unlock();
+                }
+                mark = journalFile.length();
+                entriesAtMark = journalEntries;
+            }
+
+            try {
+                backend.writeAll(records);
+
+                synchronized (writeLock) {
+                    truncateJournal(mark);
+                    journalEntries -= entriesAtMark;
+                }
+            } catch (IOException e) {
+                System.err.println("Error compacting " + backend.location() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Keep only the journal bytes written after the given offset
+    private void truncateJournal(long mark) throws IOException {
+        if (journalOut != null) {
+            journalOut.close();
+            journalOut = null;
+        }
+
+        byte[] tail;
+        try (RandomAccessFile journal = new RandomAccessFile(journalFile, "r")) {
+            tail = new byte[(int) (journal.length() - mark)];
+            journal.seek(mark);
+            journal.readFully(tail);
+        }
+
+        File tmp = new File(journalFile.getPath() + ".tmp");
+        Files.write(tmp.toPath(), tail);
+        Files.move(tmp.toPath(), journalFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,126 @@
+package operation;
+
+import model.User;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Singleton store of logged-in sessions. A successful login is exchanged for
+ * an opaque random token, and later requests resolve the token back to its
+ * user with one hash lookup instead of repeating the password check.
+ *
+ * Sessions expire after a period without use (-Dsession.idle.minutes,
+ * default 30). Expired sessions are dropped when they are next resolved, and
+ * at most once per sweep interval the thread that notices the interval has
+ * passed removes all expired sessions, so no timer thread or global lock is needed.
+ */
+public class SessionOperation {
+    private static final int TOKEN_BYTES = 24;
+
+    // Skip refreshing the last-use time more often than this, to avoid a write per request
+    private static final long TOUCH_GRANULARITY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final long idleNanos;
+    private final long sweepIntervalNanos;
+    private final AtomicLong nextSweep;
+
+    // One live session; only the last-use time changes
+    private static final class Session {
+        final User user;
+        volatile long lastUsed;
+
+        Session(User user, long now) {
+            this.user = user;
+            this.lastUsed = now;
+        }
+    }
+
+    private SessionOperation() {
+        idleNanos = TimeUnit.MINUTES.toNanos(Long.getLong("session.idle.minutes", 30));
+        sweepIntervalNanos = Math.max(idleNanos / 4, TimeUnit.SECONDS.toNanos(1));
+        nextSweep = new AtomicLong(System.nanoTime() + sweepIntervalNanos);
+    }
+
+    public static SessionOperation getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    // Created on first use; class initialization makes this thread-safe
+    private static class Holder {
+        private static final SessionOperation INSTANCE = new SessionOperation();
+    }
+
+    /**
+     * Start a session for a user who has just logged in.
+     *
+     * @return the session token
+     */
+    public String createSession(User user) {
+        long now = System.nanoTime();
+        sweepIfDue(now);
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(user, now));
+        return token;
+    }
+
+    /**
+     * Resolve a token to its user and mark the session as used.
+     *
+     * @return the user, or null if the token is unknown, the session expired
+     *         or the user has since been deleted
+     */
+    public User getUser(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - session.lastUsed > idleNanos) {
+            sessions.remove(token, session);
+            return null;
+        }
+        // Deleting users does not know about sessions, so check the user still exists
+        if (UserOperation.getInstance().getUserById(session.user.getUserId()) != session.user) {
+            sessions.remove(token, session);
+            return null;
+        }
+        if (now - session.lastUsed > TOUCH_GRANULARITY_NANOS) {
+            session.lastUsed = now;
+        }
+        return session.user;
+    }
+
+    /**
+     * End a session (logout).
+     */
+    public void endSession(String token) {
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    // Number of sessions held, including expired ones not yet swept
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    // Let a single caller per interval remove every expired session
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + sweepIntervalNanos)) {
+            return;
+        }
+        sessions.values().removeIf(session -> now - session.lastUsed > idleNanos);
+    }
+}
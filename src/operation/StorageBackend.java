@@ -0,0 +1,63 @@
+package operation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Storage engine for the base copy of one record type.
+ * {@link RecordStore} keeps the change journal on top of it, so a backend
+ * only needs to load every record and atomically replace every record.
+ *
+ * The backend is chosen at startup with -Dstorage.backend=text (default)
+ * or -Dstorage.backend=binary.
+ *
+ * @param <T> record type
+ */
+interface StorageBackend<T> {
+
+    /**
+     * Load every record of the base copy, in stored order.
+     * Returns an empty list when nothing is stored yet.
+     */
+    List<T> loadAll();
+
+    /**
+     * Replace the base copy with the given records. Must be crash-safe:
+     * after a crash either the old or the new copy is visible.
+     */
+    void writeAll(List<T> records) throws IOException;
+
+    // Base file of this backend; the journal is kept next to it
+    File location();
+
+    /**
+     * Open the backend selected at startup for the given text data file.
+     */
+    static <T> StorageBackend<T> open(String textFile, RecordCodec<T> codec) {
+        return open(textFile, codec, System.getProperty("storage.backend", "text"));
+    }
+
+    /**
+     * Open a specific backend for the given text data file.
+     *
+     * @param backend "text" or "binary"
+     */
+    static <T> StorageBackend<T> open(String textFile, RecordCodec<T> codec, String backend) {
+        File file = new File(textFile);
+        File parentDir = file.getParentFile();
+        // Create directory if missing
+        if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs()) {
+            System.err.println("Failed to create directories for: " + textFile);
+        }
+
+        switch (backend) {
+            case "text":
+                return new TextStorageBackend<>(file, codec);
+            case "binary":
+                return new BinaryStorageBackend<>(file, codec);
+            default:
+                throw new IllegalArgumentException("Unknown storage backend: " + backend);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package operation;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Load-time dictionary that maps repeated field values to one shared String.
+ * Millions of orders point at a few thousand users and products, so keeping
+ * one instance per distinct value instead of one per record shrinks the heap.
+ * Thread-safe, so the parallel loader's workers can share it.
+ */
+final class StringDictionary {
+    // User ids, shared by users and the orders that reference them
+    static final StringDictionary USER_IDS = new StringDictionary();
+    // Product ids, shared by products and the orders that reference them
+    static final StringDictionary PRODUCT_IDS = new StringDictionary();
+    static final StringDictionary CATEGORIES = new StringDictionary();
+    static final StringDictionary ROLES = new StringDictionary();
+
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+
+    private StringDictionary() {
+    }
+
+    /**
+     * Return the shared instance equal to the value, registering it if new.
+     */
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = values.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    // Number of distinct values seen
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,36 @@
+package operation;
+
+import java.util.Map;
+
+/**
+ * Bar charts printed to the console as rows of '#'. The figure options of
+ * the menus use this until a charting library is added.
+ */
+final class TextChart {
+    // Width of the longest bar
+    private static final int BAR_WIDTH = 50;
+
+    private TextChart() {
+    }
+
+    /**
+     * Print a title, then one bar per entry in map order, scaled so the
+     * largest value is BAR_WIDTH characters wide.
+     *
+     * @param valueFormat format of the value printed after each bar, e.g. "%d"
+     */
+    static void print(String title, Map<String, ? extends Number> bars, String valueFormat) {
+        System.out.println("\n" + title + ":");
+        double max = 0;
+        int labelWidth = 1;
+        for (Map.Entry<String, ? extends Number> entry : bars.entrySet()) {
+            max = Math.max(max, entry.getValue().doubleValue());
+            labelWidth = Math.max(labelWidth, entry.getKey().length());
+        }
+        String line = "%-" + labelWidth + "s %s " + valueFormat + "%n";
+        for (Map.Entry<String, ? extends Number> entry : bars.entrySet()) {
+            int width = max > 0 ? (int) Math.round(entry.getValue().doubleValue() / max * BAR_WIDTH) : 0;
+            System.out.printf(line, entry.getKey(), "#".repeat(width), entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package operation;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Human-readable backend: one JSON-like line per record in the .txt file,
+ * loaded with the parallel memory-mapped loader. A binary snapshot is kept
+ * next to it and loaded instead of the text when it is at least as new.
+ *
+ * @param <T> record type
+ */
+final class TextStorageBackend<T> implements StorageBackend<T> {
+    private final File dataFile;
+    private final File snapshotFile;  // Binary copy of the text file for fast starts
+    private final RecordCodec<T> codec;
+
+    // Bumped by every writeAll; snapshot writes take snapshotLock and skip
+    // themselves when a newer writeAll has happened since their records were read
+    private final AtomicLong generation = new AtomicLong();
+    private final Object snapshotLock = new Object();
+
+    TextStorageBackend(File dataFile, RecordCodec<T> codec) {
+        this.dataFile = dataFile;
+        this.snapshotFile = new File(dataFile.getPath() + ".snapshot");
+        this.codec = codec;
+    }
+
+    @Override
+    public List<T> loadAll() {
+        if (!dataFile.exists() || snapshotFile.lastModified() >= dataFile.lastModified()) {
+            List<T> records = RecordSnapshot.read(snapshotFile, codec);
+            if (records != null) {
+                return records;
+            }
+        }
+        if (!dataFile.exists()) {
+            return new ArrayList<>();
+        }
+
+        long loaded = generation.get();
+        List<T> records;
+        try {
+            records = ParallelRecordLoader.load(dataFile, codec::parseLine);
+        } catch (IOException | RuntimeException e) {
+            // No snapshot either: an empty one would look newer than the text next time
+            System.err.println("Error loading " + dataFile + ": " + e.getMessage());
+            return new ArrayList<>();
+        }
+
+        // Refresh the stale or missing snapshot so the next start is fast
+        List<T> snapshotRecords = new ArrayList<>(records);
+        ForkJoinPool.commonPool().execute(() -> writeSnapshot(snapshotRecords, loaded));
+        return records;
+    }
+
+    @Override
+    public void writeAll(List<T> records) throws IOException {
+        long written = generation.incrementAndGet();
+        // Write the new file next to the old one and swap it in atomically
+        File tmp = new File(dataFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp);
+             BufferedWriter writer = new BufferedWriter(
+                     new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (T record : records) {
+                writer.write(codec.format(record));
+                writer.newLine();
+            }
+            writer.flush();
+            out.getChannel().force(true);
+        }
+        Files.move(tmp.toPath(), dataFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writeSnapshot(records, written);
+    }
+
+    @Override
+    public File location() {
+        return dataFile;
+    }
+
+    // Written after the text file so its timestamp is never older; records
+    // from an older generation than the text file are not written at all
+    private void writeSnapshot(List<T> records, long recordsGeneration) {
+        synchronized (snapshotLock) {
+            if (recordsGeneration != generation.get()) {
+                return;
+            }
+            try {
+                RecordSnapshot.write(snapshotFile, records, codec);
+            } catch (IOException e) {
+                System.err.println("Error writing snapshot " + snapshotFile + ": " + e.getMessage());
+            }
+        }
+    }
+}
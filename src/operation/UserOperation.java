@@ -2,31 +2,44 @@ package operation;
 
 import model.*;
 
-import java.io.*;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 /**
  * Singleton class to manage User data including loading, saving,
  * validation, login, and user CRUD operations.
+ * Safe for concurrent use: reads share a read lock, changes take the write lock.
  */
 public class UserOperation {
-    // Singleton instance
-    private static UserOperation instance;
-
     // In-memory list of users
     private final List<User> users;
 
+    // Username -> user index for login and duplicate checks
+    private final Map<String, User> usersByName = new HashMap<>();
+
+    // User ID -> user index for validating references such as orders
+    private final Map<String, User> usersById = new HashMap<>();
+
     // File path to persist user data
     private static final String USERS_FILE = "data/users.txt";
 
+    // Base file plus append-only journal of user changes
+    private final RecordStore<User> store;
+
+    // Guards the users list, the name index and the fields of every user
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
     /**
      * Private constructor initializes users list and loads users from file.
      * Loads users from file when this class is created.
      */
     private UserOperation() {
         users = new ArrayList<>();
+        store = new RecordStore<>(StorageBackend.open(USERS_FILE, RecordCodec.USERS),
+                RecordCodec.USERS, lock.readLock(), () -> users);
         loadUsersFromFile();
     }
 
@@ -34,132 +47,40 @@ public class UserOperation {
      Only one UserOperation object will exist
      */
     public static UserOperation getInstance() {
-        if (instance == null) {
-            instance = new UserOperation();
-        }
-        return instance;
-    }
-
-    /**
-     * Load users from file into the users list.
-     * Creates directories if needed.
-     */
-    private void loadUsersFromFile() {
-        File file = new File(USERS_FILE);
-        File parentDir = file.getParentFile();
-
-        // Create directory if missing
-        if (parentDir != null && !parentDir.exists()) {
-            boolean dirsCreated = parentDir.mkdirs();
-            if (!dirsCreated) {
-                System.err.println("Failed to create directories for: " + USERS_FILE);
-                return;
-            }
-        }
-
-        // If file doesn't exist, no users to load
-        if (!file.exists()) {
-            return;
-        }
-
-        // Read users line-by-line and parse
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.startsWith("{") && line.endsWith("}")) {
-                    User user = parseUser(line);
-                    if (user != null) {
-                        users.add(user);
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error loading users: " + e.getMessage());
-        }
+        return Holder.INSTANCE;
     }
 
-
-    private User parseUser(String line) {
-    //Check if this line is about orders or products
-        if (line.contains("order_id") || line.contains("pro_id")) {
-            System.err.println("Skipping non-user record in users file: " + line);
-            return null;
-        }
-        //Turn the line into a list of keys and values
-        Map<String, String> userMap = createUserMap(line);
-        if (userMap.isEmpty()) {
-            return null;
-        }
-
-        try {
-            //Take out pieces of user info by name
-            String userId = userMap.get("user_id");
-            String userName = userMap.get("user_name");
-            String password = userMap.get("user_password");
-            String registerTime = userMap.get("user_register_time");
-            String role = userMap.get("user_role");
-
-            if ("admin".equalsIgnoreCase(role)) {
-                // Create Admin user
-                return new Admin(userId, userName, password, registerTime, role);
-            } else {
-                // Create Customer user with email and mobile
-                String email = userMap.get("user_email");
-                String mobile = userMap.get("user_mobile");
-                return new Customer(userId, userName, password, registerTime, role, email, mobile);
-            }
-        } catch (Exception e) {
-            System.err.println("Error parsing user: " + e.getMessage());
-            return null;
-        }
+    // Created on first use; class initialization makes this thread-safe
+    private static class Holder {
+        private static final UserOperation INSTANCE = new UserOperation();
     }
 
     /**
-     * Convert a JSON-like user string into a Map of key-value pairs.
+     * Load users from file into the users list,
+     * replaying any journaled changes on top.
      */
-    private Map<String, String> createUserMap(String userString) {
-        Map<String, String> userMap = new HashMap<>();
-        try {
-            // Remove the enclosing braces
-            String content = userString.substring(1, userString.length() - 1);
-            // Split by "," possibly with spaces
-            String[] pairs = content.split("\",\\s*\"");
-
-            for (String pair : pairs) {
-                String[] keyValue = pair.split("\":\"?", 2);
-                if (keyValue.length == 2) {
-                    String key = keyValue[0].replace("\"", "").trim();
-                    String value = keyValue[1].replace("\"", "").trim();
-                    userMap.put(key, value);
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error creating user map: " + e.getMessage());
-        }
-        return userMap;
+    private void loadUsersFromFile() {
+        users.addAll(store.load());
+        rebuildIndexes();
     }
 
-    /**
-     * Save all users in memory to the file in JSON-like format.
-     */
-    private void saveUsersToFile() {
-        File file = new File(USERS_FILE);
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            for (User user : users) {
-                writer.write(user.toString());
-                writer.newLine();
+    // First user with a given name wins, like the old linear search
+    private void rebuildIndexes() {
+        usersByName.clear();
+        usersById.clear();
+        for (User user : users) {
+            if (user.getUserName() != null) {
+                usersByName.putIfAbsent(user.getUserName(), user);
             }
-        } catch (IOException e) {
-            System.err.println("Error saving users: " + e.getMessage());
+            usersById.put(user.getUserId(), user);
         }
     }
 
     /**
-     * Generate a unique user ID based on current time and a random number.
+     * Generate a unique user ID from the time, node and a per-millisecond sequence.
      */
     public String generateUniqueUserId() {
-        return "u_" + System.currentTimeMillis() + "_" + ThreadLocalRandom.current().nextInt(1000);
+        return IdGenerator.USERS.nextId();
     }
 
     public String encryptPassword(String userPassword) {
@@ -210,10 +131,29 @@ public class UserOperation {
      * Check if a username already exists.
      */
     public boolean checkUsernameExist(String userName) {
-        if (userName == null) {
-            return false;
+        lock.readLock().lock();
+        try {
+            if (userName == null) {
+                return false;
+            }
+            return usersByName.containsKey(userName);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find a user by ID.
+     *
+     * @return the user, or null if there is none
+     */
+    public User getUserById(String userId) {
+        lock.readLock().lock();
+        try {
+            return usersById.get(userId);
+        } finally {
+            lock.readLock().unlock();
         }
-        return users.stream().anyMatch(u -> userName.equals(u.getUserName()));
     }
 
     /**
@@ -235,22 +175,142 @@ public class UserOperation {
      * Returns user if found, null otherwise.
      */
     public User login(String userName, String userPassword) {
-        if (userName == null || userPassword == null) {
+        lock.readLock().lock();
+        try {
+            if (userName == null || userPassword == null) {
+                return null;
+            }
+            User user = usersByName.get(userName);
+            if (user != null && userPassword.equals(decryptPassword(user.getUserPassword()))) {
+                return user;
+            }
             return null;
+        } finally {
+            lock.readLock().unlock();
         }
-        return users.stream()
-                .filter(u -> userName.equals(u.getUserName()) && userPassword.equals(decryptPassword(u.getUserPassword())))
-                .findFirst()
-                .orElse(null);
     }
 
     /**
-     * Add a new user to the in-memory list and persist to file.
+     * Add a new user to the in-memory list and append it to the journal.
+     * The returned future completes once the user is durable on disk.
      */
-    public void addUser(User user) {
-        if (user != null) {
+    public CompletableFuture<Void> addUser(User user) {
+        lock.writeLock().lock();
+        try {
+            if (user == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            users.add(user);
+            if (user.getUserName() != null) {
+                usersByName.putIfAbsent(user.getUserName(), user);
+            }
+            usersById.put(user.getUserId(), user);
+            return store.put(user);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a new user only if nobody has taken its username yet. The check and
+     * the insert happen under one lock, so concurrent sign-ups cannot both win.
+     *
+     * @return a future completed with true once the user is durable, or
+     *         completed with false at once if the username is already taken
+     */
+    public CompletableFuture<Boolean> registerUser(User user) {
+        lock.writeLock().lock();
+        try {
+            if (user == null || user.getUserName() == null || usersByName.containsKey(user.getUserName())) {
+                return CompletableFuture.completedFuture(false);
+            }
             users.add(user);
-            saveUsersToFile();
+            usersByName.put(user.getUserName(), user);
+            usersById.put(user.getUserId(), user);
+            return store.put(user).thenApply(ignored -> true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rename a user, keeping the username index in step.
+     *
+     * @return false if the new name is already taken
+     */
+    public boolean changeUsername(User user, String newName) {
+        lock.writeLock().lock();
+        try {
+            if (!isStored(user) || newName == null || usersByName.containsKey(newName)) {
+                return false;
+            }
+            if (usersByName.get(user.getUserName()) == user) {
+                usersByName.remove(user.getUserName());
+            }
+            user.setUserName(newName);
+            usersByName.put(newName, user);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Persist changes made to an existing user's fields.
+     *
+     * @return a future completed once the user is durable, or failed with
+     *         IllegalArgumentException if the user has been deleted
+     */
+    public CompletableFuture<Void> updateUser(User user) {
+        lock.writeLock().lock();
+        try {
+            if (!isStored(user)) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown user"));
+            }
+            return store.put(user);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Change an existing user's fields under the write lock and persist them,
+     * so readers and compaction never see a half-applied update.
+     *
+     * @param change applies the update and returns false if nothing changed
+     * @return a future completed with true once the change is durable, or
+     *         completed with false at once if nothing changed or the user has
+     *         been deleted
+     */
+    public <U extends User> CompletableFuture<Boolean> updateUser(U user, Predicate<? super U> change) {
+        lock.writeLock().lock();
+        try {
+            // A deleted user's journal entry would bring it back on the next start
+            if (!isStored(user) || !change.test(user)) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return store.put(user).thenApply(ignored -> true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // True if this exact user object is still one of the stored users
+    private boolean isStored(User user) {
+        return user != null && usersById.get(user.getUserId()) == user;
+    }
+
+    /**
+     * Remove every customer, keeping admins.
+     */
+    public CompletableFuture<Void> deleteAllCustomers() {
+        lock.writeLock().lock();
+        try {
+            users.removeIf(u -> u instanceof Customer);
+            rebuildIndexes();
+            return store.replaceAll(users);
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
@@ -258,6 +318,11 @@ public class UserOperation {
      * Return a copy of all users.
      */
     public List<User> getAllUsers() {
-        return new ArrayList<>(users);
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(users);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 }